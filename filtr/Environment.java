@@ -1,11 +1,16 @@
 package filtr;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import filtr.dataset.Dataset;
+
 public class Environment {
     final Environment enclosing;
     private final Map<String, Object> values = new HashMap<>();
+    private final List<Dataset> returned = new ArrayList<>(); // handed back by calls made here, perhaps never bound
 
     Environment() {
         this.enclosing = null;
@@ -16,7 +21,42 @@ public class Environment {
     }
 
     void define(String name, Object value) {
-        values.put(name, value);
+        rebind(values.put(name, value), value);
+    }
+
+    // Datasets count the variables bound to them so off-heap storage is freed with the last one
+    private static void rebind(Object previous, Object value) {
+        if (previous == value) return;
+        if (value instanceof Dataset dataset) dataset.retain();
+        if (previous instanceof Dataset dataset) dataset.release();
+    }
+
+    // A scope's datasets are released when it ends; the one being returned is handed to the caller instead.
+    // Off-heap ones are unbound too, so nothing left holding this scope keeps their freed storage mapped.
+    void releaseBindings(Object kept) {
+        values.values().removeIf(value -> {
+            if (!(value instanceof Dataset dataset)) return false;
+            if (value == kept) {
+                dataset.handOff();
+                return false;
+            }
+            dataset.release();
+            return dataset.isOffHeap();
+        });
+        releaseReturned(kept);
+    }
+
+    // Records a dataset a call made in this scope returned, which a variable may or may not take
+    void adopt(Object value) {
+        if (value instanceof Dataset dataset) returned.add(dataset);
+    }
+
+    // Frees the returned datasets no variable took, except the one being passed further up
+    void releaseReturned(Object kept) {
+        for (Dataset dataset : returned) {
+            if (dataset != kept) dataset.releaseUnbound();
+        }
+        returned.clear();
     }
 
     Object getAt(int distance, String name) {
@@ -24,7 +64,7 @@ public class Environment {
     }
 
     void assignAt(int distance, Token name, Object value) {
-        ancestor(distance).values.put(name.lexeme, value);
+        rebind(ancestor(distance).values.put(name.lexeme, value), value);
     }
 
     Environment ancestor(int distance) {
@@ -48,7 +88,7 @@ public class Environment {
 
     void assign(Token name, Object value) {
         if (values.containsKey(name.lexeme)) {
-            values.put(name.lexeme, value);
+            rebind(values.put(name.lexeme, value), value);
             return;
         }
 
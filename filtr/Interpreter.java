@@ -30,6 +30,18 @@ import filtr.Stmt.View;
 public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     
     private Environment environment = new Environment();
+    private Map<Stmt.Import, java.util.Set<String>> projections = Map.of();
+    private Map<Stmt.Import, Filter> pushdowns = Map.of();
+    
+    /** Columns each import should load, worked out from the whole script up front. */
+    void useProjections(Map<Stmt.Import, java.util.Set<String>> projections) {
+        this.projections = projections;
+    }
+    
+    /** Filters each import can apply while it loads, so rejected rows are never stored. */
+    void usePushdowns(Map<Stmt.Import, Filter> pushdowns) {
+        this.pushdowns = pushdowns;
+    }
     
     @Override
     public Object visitLiteralExpr(Expr.Literal expr) {
@@ -110,13 +122,19 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
     void executeBlock(List<Stmt> statements,
     Environment environment) {
         Environment previous = this.environment;
+        Object returned = null;
         try {
             this.environment = environment;
             
             for (Stmt statement : statements) {
                 execute(statement);
             }
+        } catch (filtr.Return value) {
+            returned = value.value;
+            throw value;
         } finally {
+            environment.releaseBindings(returned);
+            previous.adopt(returned);
             this.environment = previous;
         }
     }
@@ -210,6 +228,8 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
             }
         } catch (RuntimeError error) {
             filtR.runtimeError(error);
+        } finally {
+            environment.releaseReturned(null);
         }
     }
     
@@ -244,7 +264,13 @@ public class Interpreter implements Expr.Visitor<Object>, Stmt.Visitor<Void> {
 
         switch (mode) {
             case "row":
-                for (Map<String, Object> row : dataset.getRows()) {
+                List<Map<String, Object>> rows;
+                try {
+                    rows = dataset.getRows();
+                } catch (IllegalArgumentException e) {
+                    throw new RuntimeError(stmt.dataset, e.getMessage());
+                }
+                for (Map<String, Object> row : rows) {
                     Environment forEnv = new Environment(environment);
                     forEnv.define(stmt.name.lexeme, row);
                     executeBlock(((Stmt.Block)stmt.body).statements, forEnv);
@@ -392,8 +418,12 @@ public Void visitAddColumnStmt(AddColumn stmt) {
         String operator = stmt.operator.lexeme;
         Object value = evaluate(stmt.expression);
         System.out.println("Filtering dataset " + stmt.dataset.lexeme + " on column " + columnName + " " + operator + " " + value);
-        Dataset filteredDataset = dataset.filterDataset(columnName, operator, value);
-        environment.define(stmt.newName.lexeme, filteredDataset);
+        try {
+            Dataset filteredDataset = dataset.filterDataset(columnName, operator, value);
+            environment.define(stmt.newName.lexeme, filteredDataset);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeError(stmt.columnName, e.getMessage());
+        }
         return null;
     }
     
@@ -401,10 +431,17 @@ public Void visitAddColumnStmt(AddColumn stmt) {
     public Void visitExportStmt(Export stmt) {
         Dataset dataset = (Dataset) environment.get(stmt.dataset);
         try {
-            dataset.exportDataset(stmt.path.lexeme, stmt.dataset.lexeme, stmt.format.lexeme);
+            if (stmt.path.type == TokenType.IDENTIFIER) {
+                // export d to stdout: the data goes to the real standard output
+                dataset.exportDataset(filtR.stdout, stmt.format.lexeme, exportOptions(stmt.options));
+            } else {
+                dataset.exportDataset(stmt.path.lexeme, stmt.dataset.lexeme, stmt.format.lexeme, exportOptions(stmt.options));
+            }
             System.out.println("Exported dataset to " + stmt.path.lexeme);
         } catch (IOException e) {
             throw new RuntimeError(stmt.path, "Failed to export dataset to path: " + stmt.path.lexeme + " ");
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeError(stmt.format, e.getMessage());
         }
         
         return null;
@@ -413,16 +450,77 @@ public Void visitAddColumnStmt(AddColumn stmt) {
     @Override
     public Void visitImportStmt(Import stmt) {
         String path = (String) stmt.path.literal;
+        LoadOptions options = loadOptions(stmt.options);
+        options.columns = projections.get(stmt);
+        Filter filter = pushdowns.get(stmt);
+        if (filter != null) {
+            // The filter statement still runs; re-applying it to the kept rows changes nothing
+            options.where = new RowFilter(filter.columnName.lexeme, filter.operator.lexeme, ((Expr.Literal) filter.expression).value);
+        }
         try {
-            Dataset dataset = DatasetLoader.load(path);
+            Dataset dataset = stmt.path.type == TokenType.IDENTIFIER ? DatasetLoader.loadStdin(options) : DatasetLoader.load(path, options);
             environment.define(stmt.newName.lexeme, dataset);
             System.out.println("Imported dataset: " + dataset);
             return null;
-        } catch (IOException e) {
+        } catch (IOException | IllegalArgumentException e) {
             throw new RuntimeError(stmt.path, "Failed to import dataset. " + e.getMessage());
         }
     }
     
+    private LoadOptions loadOptions(List<Token> modifiers) {
+        LoadOptions options = LoadOptions.defaults();
+        for (int i = 0; i < modifiers.size(); i++) {
+            Token modifier = modifiers.get(i);
+            switch (modifier.lexeme) {
+                case "offheap" -> options.offHeap = true;
+                case "parallel" -> options.parallel = true;
+                case "mapped" -> options.mapped = true;
+                case "follow" -> options.follow = true;
+                case "threads" -> {
+                    // threads N: how many files of a glob import load at once
+                    Token count = i + 1 < modifiers.size() ? modifiers.get(++i) : modifier;
+                    if (!(count.literal instanceof Double n) || n < 1 || n % 1 != 0) {
+                        throw new RuntimeError(count, "Expect a whole number of threads after 'threads'.");
+                    }
+                    options.threads = n.intValue();
+                }
+                default -> throw new RuntimeError(modifier, "Unknown import option '" + modifier.lexeme + "'.");
+            }
+        }
+        return options;
+    }
+    
+    static ExportOptions exportOptions(List<Token> modifiers) {
+        ExportOptions options = ExportOptions.defaults();
+        for (int i = 0; i < modifiers.size(); i++) {
+            Token modifier = modifiers.get(i);
+            switch (modifier.lexeme) {
+                case "gzip" -> options.gzip = true;
+                case "partitioned" -> {
+                    // partitioned by col: one directory of files per value
+                    Token by = i + 1 < modifiers.size() ? modifiers.get(++i) : modifier;
+                    Token column = i + 1 < modifiers.size() ? modifiers.get(++i) : by;
+                    if (!by.lexeme.equals("by") || column == by || column.type != TokenType.IDENTIFIER) {
+                        throw new RuntimeError(column, "Expect 'by' and a column name after 'partitioned'.");
+                    }
+                    options.partitionBy = column.lexeme;
+                }
+                case "split" -> {
+                    // split into N files: each output's rows spread evenly over N files
+                    Token into = i + 1 < modifiers.size() ? modifiers.get(++i) : modifier;
+                    Token count = i + 1 < modifiers.size() ? modifiers.get(++i) : into;
+                    Token files = i + 1 < modifiers.size() ? modifiers.get(++i) : count;
+                    if (!into.lexeme.equals("into") || !(count.literal instanceof Double n) || n < 1 || n % 1 != 0 || !files.lexeme.equals("files")) {
+                        throw new RuntimeError(count, "Expect 'into', a whole number and 'files' after 'split'.");
+                    }
+                    options.parts = n.intValue();
+                }
+                default -> throw new RuntimeError(modifier, "Unknown export option '" + modifier.lexeme + "'.");
+            }
+        }
+        return options;
+    }
+    
     @Override
     public Void visitAssignStmt(Assign stmt) {
         Object value = evaluate(stmt.value);
@@ -481,17 +579,16 @@ public Void visitAddColumnStmt(AddColumn stmt) {
             Dataset dataset = (Dataset) object;
             String columnName = expr.name.lexeme;
             
-            if (!dataset.getColumns().contains(columnName)) {
+            if (!dataset.hasColumn(columnName)) {
                 throw new RuntimeError(expr.name,
                 "Dataset does not have column: " + columnName);
             }
             
-            List<Object> columnValues = new ArrayList<>();
-            for (Map<String, Object> row : dataset.getRows()) {
-                columnValues.add(row.get(columnName));
+            try {
+                return dataset.getColumnValues(columnName);
+            } catch (IllegalArgumentException e) {
+                throw new RuntimeError(expr.name, e.getMessage());
             }
-            
-            return columnValues;
         }
         
         throw new RuntimeError(expr.name,
@@ -68,11 +68,15 @@ private Expr logicAnd() {
   
   private Stmt datasetDeclaration() {
     Token keyword = previous();
-    Token path = consume(STRING, "Expect string as path to a dataset");
+    Token path = stream("stdin") ? advance() : consume(STRING, "Expect string as path to a dataset");
     consume(AS, "Expect 'as' after dataset path.");
     Token alias = consume(IDENTIFIER, "Expect dataset alias.");
+    List<Token> options = new ArrayList<>();
+    while (check(IDENTIFIER) || check(NUMBER)) {
+      options.add(advance());
+    }
     consume(SEMICOLON, "Expect ';' after value.");
-    return new Stmt.Import(keyword, path, alias);
+    return new Stmt.Import(keyword, path, alias, options);
   }
   
   private Stmt functionDeclaration() {
@@ -148,7 +152,7 @@ private Expr logicAnd() {
     Token name = consume(IDENTIFIER, "Expect column name after 'filter'");
     consume(WHERE, "Expect 'where' after column name");
     Token columnName = consume(IDENTIFIER, "Expect column name in filter condition");
-    if (!match(BANG_EQUAL, EQUAL, GREATER, GREATER_EQUAL, LESS, LESS_EQUAL)) {
+    if (!match(BANG_EQUAL, EQUAL_EQUAL, GREATER, GREATER_EQUAL, LESS, LESS_EQUAL)) {
       throw error(previous(), "Expect condition after 'where'");
     }
     Token operator = previous();
@@ -205,14 +209,18 @@ private Expr logicAnd() {
     Token keyword = previous();
     Token datasetName = consume(IDENTIFIER, "Expect dataset name after 'export' or 'save'.");
     consume(TO, "Expect 'to' after 'datasetname'.");
-    Token path = consume(STRING, "Expect valid path to save the dataset");
+    Token path = stream("stdout") ? advance() : consume(STRING, "Expect valid path to save the dataset");
     consume(AS, "Expect 'as' after path.");
-    if (!match(CSV, JSON)) {
-      throw error(peek(), "Expect 'csv' or 'json' after 'as'.");
+    if (!match(CSV, JSON, IDENTIFIER)) {
+      throw error(peek(), "Expect export format after 'as'.");
     }
     Token format = previous();
+    List<Token> options = new ArrayList<>();
+    while (check(IDENTIFIER) || check(NUMBER)) {
+      options.add(advance());
+    }
     consume(SEMICOLON, "Expect ';' after value.");
-    return new Stmt.Export(keyword, datasetName, path, format);
+    return new Stmt.Export(keyword, datasetName, path, format, options);
   }
 
   private Stmt dropStatement() {
@@ -498,6 +506,11 @@ private Expr logicAnd() {
     return peek().type == type;
   }
   
+  /** stdin and stdout stand in for a path; they are plain identifiers everywhere else. */
+  private boolean stream(String name) {
+    return check(IDENTIFIER) && peek().lexeme.equals(name);
+  }
+
   private Token advance() {
     if (!isAtEnd()) current++;
     return previous();
@@ -0,0 +1,373 @@
+package filtr;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Works out, before a script runs, which columns of each imported dataset it
+ * can read, so the loader only parses those. Column names are followed from
+ * {@code d.col} expressions and fill/filter/add column statements back to
+ * the import, through aliases, filters and renames.
+ *
+ * Anything that may touch every column (view, review, export, row loops, a
+ * dataset passed around as a value) or whose column can't be named statically
+ * (a fill whose column token may be a variable, a rename inside a branch or
+ * loop, a dataset used inside a function) loads that import in full.
+ */
+class ProjectionAnalyzer implements Stmt.Visitor<Void>, Expr.Visitor<Void> {
+
+    /** One import statement and the columns read from it. */
+    private static class Source {
+        final Set<String> columns = new HashSet<>();
+        boolean everything;
+    }
+
+    /** A dataset value as the script sees it: where it came from and what it renamed. */
+    private static class Ref {
+        final Source source;
+        final Map<String, String> renamed; // current name -> name in the file
+
+        Ref(Source source, Map<String, String> renamed) {
+            this.source = source;
+            this.renamed = renamed;
+        }
+
+        String original(String column) {
+            return renamed.getOrDefault(column, column);
+        }
+    }
+
+    /** A fill, resolved once every name the script defines is known. */
+    private record PendingFill(Ref ref, String column, String original) {
+    }
+
+    private final Map<Stmt.Import, Source> sources = new IdentityHashMap<>();
+    private final Map<String, List<Ref>> bindings = new HashMap<>();
+    private final Map<String, List<Ref>> everBound = new HashMap<>();
+    private final Set<String> defined = new HashSet<>();
+    private final Set<String> usedInFunctions = new HashSet<>();
+    private final List<PendingFill> fills = new ArrayList<>();
+    private int depth;              // > 0 inside a branch, loop or block
+    private boolean inFunction;     // only collecting names while inside a function body
+
+    /** Columns to load per import; imports missing from the map load every column. */
+    Map<Stmt.Import, Set<String>> analyze(List<Stmt> statements) {
+        for (Stmt statement : statements) {
+            statement.accept(this);
+        }
+
+        for (PendingFill fill : fills) {
+            if (defined.contains(fill.column)) fill.ref.source.everything = true;
+            else fill.ref.source.columns.add(fill.original);
+        }
+        for (String name : usedInFunctions) {
+            for (Ref ref : everBound.getOrDefault(name, List.of())) {
+                ref.source.everything = true;
+            }
+        }
+
+        Map<Stmt.Import, Set<String>> projections = new IdentityHashMap<>();
+        for (Map.Entry<Stmt.Import, Source> entry : sources.entrySet()) {
+            if (!entry.getValue().everything) projections.put(entry.getKey(), entry.getValue().columns);
+        }
+        return projections;
+    }
+
+    private List<Ref> refs(Token dataset) {
+        return bindings.getOrDefault(dataset.lexeme, List.of());
+    }
+
+    /** Points a name at dataset values; inside a branch or loop it may still hold the old ones. */
+    private void bind(String name, List<Ref> refs) {
+        defined.add(name);
+        List<Ref> bound = new ArrayList<>(refs);
+        if (depth > 0) bound.addAll(bindings.getOrDefault(name, List.of()));
+        bindings.put(name, bound);
+        everBound.computeIfAbsent(name, key -> new ArrayList<>()).addAll(refs);
+    }
+
+    private void define(String name) {
+        defined.add(name);
+        if (depth == 0) bindings.remove(name);
+    }
+
+    private void need(Token dataset, String column) {
+        if (inFunction) {
+            usedInFunctions.add(dataset.lexeme);
+            return;
+        }
+        for (Ref ref : refs(dataset)) {
+            ref.source.columns.add(ref.original(column));
+        }
+    }
+
+    private void needEverything(Token dataset) {
+        if (inFunction) {
+            usedInFunctions.add(dataset.lexeme);
+            return;
+        }
+        for (Ref ref : refs(dataset)) {
+            ref.source.everything = true;
+        }
+    }
+
+    private void scan(Expr expr) {
+        if (expr != null) expr.accept(this);
+    }
+
+    private void nested(Stmt body, boolean loop) {
+        depth++;
+        body.accept(this);
+        // A second pass sees the bindings the first one left for the next iteration
+        if (loop) body.accept(this);
+        depth--;
+    }
+
+    @Override
+    public Void visitBlockStmt(Stmt.Block stmt) {
+        depth++;
+        for (Stmt statement : stmt.statements) {
+            statement.accept(this);
+        }
+        depth--;
+        return null;
+    }
+
+    @Override
+    public Void visitExpressionStmt(Stmt.Expression stmt) {
+        scan(stmt.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionStmt(Stmt.Function stmt) {
+        define(stmt.name.lexeme);
+        for (Token param : stmt.params) {
+            defined.add(param.lexeme);
+        }
+        // The body runs whenever it is called, so its datasets are loaded in full
+        boolean outer = inFunction;
+        inFunction = true;
+        depth++;
+        for (Stmt statement : stmt.body) {
+            statement.accept(this);
+        }
+        depth--;
+        inFunction = outer;
+        return null;
+    }
+
+    @Override
+    public Void visitIfStmt(Stmt.If stmt) {
+        scan(stmt.condition);
+        nested(stmt.thenBranch, false);
+        if (stmt.elseBranch != null) nested(stmt.elseBranch, false);
+        return null;
+    }
+
+    @Override
+    public Void visitPrintStmt(Stmt.Print stmt) {
+        scan(stmt.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitForStmt(Stmt.For stmt) {
+        // A row loop hands out every column; a column loop only names them
+        if (!stmt.mode.lexeme.equals("column")) needEverything(stmt.dataset);
+        defined.add(stmt.name.lexeme);
+        nested(stmt.body, true);
+        return null;
+    }
+
+    @Override
+    public Void visitDropStmt(Stmt.Drop stmt) {
+        return null; // dropping needs the column's name, not its values
+    }
+
+    @Override
+    public Void visitFillStmt(Stmt.Fill stmt) {
+        if (inFunction) {
+            usedInFunctions.add(stmt.dataset.lexeme);
+        } else {
+            // The column token names a variable when one is defined, so settle it at the end
+            for (Ref ref : refs(stmt.dataset)) {
+                fills.add(new PendingFill(ref, stmt.column.lexeme, ref.original(stmt.column.lexeme)));
+            }
+        }
+        if (stmt.conditionColumn != null) need(stmt.dataset, stmt.conditionColumn.lexeme);
+        scan(stmt.value);
+        scan(stmt.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitRenameStmt(Stmt.Rename stmt) {
+        List<Ref> refs = refs(stmt.dataset);
+        if (inFunction || depth > 0 || refs.size() != 1) {
+            // Can't tell which names are in effect afterwards
+            needEverything(stmt.dataset);
+            return null;
+        }
+        Ref ref = refs.get(0);
+        String newName = stmt.newName.lexeme.substring(1, stmt.newName.lexeme.length() - 1);
+        ref.renamed.put(newName, ref.original(stmt.column.lexeme));
+        return null;
+    }
+
+    @Override
+    public Void visitAddColumnStmt(Stmt.AddColumn stmt) {
+        if (stmt.value.size() == 1 && stmt.value.get(0) instanceof Expr.Binary condition
+                && condition.left instanceof Expr.Get base) {
+            // The interpreter reads the base column from the statement's dataset, whatever the Get names
+            need(stmt.dataset, base.name.lexeme);
+            scan(condition.right);
+            return null;
+        }
+        for (Expr value : stmt.value) {
+            scan(value);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitFilterStmt(Stmt.Filter stmt) {
+        need(stmt.dataset, stmt.columnName.lexeme);
+        scan(stmt.expression);
+        if (inFunction) return null;
+        // The result shares the source's vectors but renames on its own
+        List<Ref> derived = new ArrayList<>();
+        for (Ref ref : refs(stmt.dataset)) {
+            derived.add(new Ref(ref.source, new HashMap<>(ref.renamed)));
+        }
+        bind(stmt.newName.lexeme, derived);
+        return null;
+    }
+
+    @Override
+    public Void visitExportStmt(Stmt.Export stmt) {
+        needEverything(stmt.dataset);
+        return null;
+    }
+
+    @Override
+    public Void visitImportStmt(Stmt.Import stmt) {
+        if (inFunction) return null; // never projected
+        Source source = new Source();
+        sources.put(stmt, source);
+        bind(stmt.newName.lexeme, List.of(new Ref(source, new HashMap<>())));
+        return null;
+    }
+
+    @Override
+    public Void visitAssignStmt(Stmt.Assign stmt) {
+        if (!inFunction && stmt.value instanceof Expr.Variable variable && bindings.containsKey(variable.name.lexeme)) {
+            // An alias: the same dataset under another name
+            bind(stmt.name.lexeme, bindings.get(variable.name.lexeme));
+            return null;
+        }
+        scan(stmt.value);
+        if (!inFunction) define(stmt.name.lexeme);
+        return null;
+    }
+
+    @Override
+    public Void visitReturnStmt(Stmt.Return stmt) {
+        scan(stmt.value);
+        return null;
+    }
+
+    @Override
+    public Void visitViewStmt(Stmt.View stmt) {
+        needEverything(stmt.dataset);
+        return null;
+    }
+
+    @Override
+    public Void visitReviewStmt(Stmt.Review stmt) {
+        needEverything(stmt.dataset);
+        return null;
+    }
+
+    @Override
+    public Void visitRangeStmt(Stmt.Range stmt) {
+        defined.add(stmt.name.lexeme);
+        nested(stmt.body, true);
+        return null;
+    }
+
+    @Override
+    public Void visitAssignExpr(Expr.Assign expr) {
+        scan(expr.value);
+        return null;
+    }
+
+    @Override
+    public Void visitBinaryExpr(Expr.Binary expr) {
+        scan(expr.left);
+        scan(expr.right);
+        return null;
+    }
+
+    @Override
+    public Void visitCallExpr(Expr.Call expr) {
+        scan(expr.callee);
+        for (Expr argument : expr.arguments) {
+            scan(argument);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitGetExpr(Expr.Get expr) {
+        if (expr.object instanceof Expr.Variable variable) {
+            need(variable.name, expr.name.lexeme);
+        } else {
+            scan(expr.object);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visitGroupingExpr(Expr.Grouping expr) {
+        scan(expr.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitLiteralExpr(Expr.Literal expr) {
+        return null;
+    }
+
+    @Override
+    public Void visitLogicalExpr(Expr.Logical expr) {
+        scan(expr.left);
+        scan(expr.right);
+        return null;
+    }
+
+    @Override
+    public Void visitSetExpr(Expr.Set expr) {
+        scan(expr.object);
+        scan(expr.value);
+        return null;
+    }
+
+    @Override
+    public Void visitUnaryExpr(Expr.Unary expr) {
+        scan(expr.right);
+        return null;
+    }
+
+    @Override
+    public Void visitVariableExpr(Expr.Variable expr) {
+        // A dataset used as a plain value could end up anywhere
+        needEverything(expr.name);
+        return null;
+    }
+}
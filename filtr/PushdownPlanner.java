@@ -0,0 +1,47 @@
+package filtr;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds imports whose only use is a single {@code filter d where col op literal}
+ * at the top level of the script, so the loader can drop the rejected rows while
+ * parsing instead of storing the whole file first.
+ *
+ * A name is only trusted when it appears exactly twice in the whole script:
+ * once where it is imported and once as the filter's source. Any other mention
+ * (a view, a loop, a reassignment, a use inside a function) keeps the full load.
+ */
+class PushdownPlanner {
+
+    private final List<Token> tokens;
+
+    PushdownPlanner(List<Token> tokens) {
+        this.tokens = tokens;
+    }
+
+    /** The filter each import can apply while it loads; other imports are absent. */
+    Map<Stmt.Import, Stmt.Filter> plan(List<Stmt> statements) {
+        Map<String, Integer> mentions = new HashMap<>();
+        for (Token token : tokens) {
+            if (token.type == TokenType.IDENTIFIER) mentions.merge(token.lexeme, 1, Integer::sum);
+        }
+
+        Map<Stmt.Import, Stmt.Filter> pushdowns = new IdentityHashMap<>();
+        for (int i = 0; i < statements.size(); i++) {
+            if (!(statements.get(i) instanceof Stmt.Import load)) continue;
+            String name = load.newName.lexeme;
+            if (mentions.getOrDefault(name, 0) != 2) continue;
+
+            for (int j = i + 1; j < statements.size(); j++) {
+                if (statements.get(j) instanceof Stmt.Filter filter && filter.dataset.lexeme.equals(name)) {
+                    if (filter.expression instanceof Expr.Literal) pushdowns.put(load, filter);
+                    break;
+                }
+            }
+        }
+        return pushdowns;
+    }
+}
@@ -260,11 +260,12 @@ abstract class Stmt {
     }
   }
   static class Export extends Stmt {
-    Export(Token keyword, Token dataset, Token path, Token format) {
+    Export(Token keyword, Token dataset, Token path, Token format, List<Token> options) {
       this.keyword = keyword;
       this.dataset = dataset;
       this.path = path;
       this.format = format;
+      this.options = options;
     }
 
     @Override
@@ -276,17 +277,19 @@ abstract class Stmt {
     final Token dataset;
     final Token path;
     final Token format;
+    final List<Token> options;
 
     @Override
     public String toString() {
-      return "Export(" + keyword + ", " + dataset + ", " + path + ", " + format + ")";
+      return "Export(" + keyword + ", " + dataset + ", " + path + ", " + format + ", " + options + ")";
     }
   }
   static class Import extends Stmt {
-    Import(Token keyword, Token path, Token newName) {
+    Import(Token keyword, Token path, Token newName, List<Token> options) {
       this.keyword = keyword;
       this.path = path;
       this.newName = newName;
+      this.options = options;
     }
 
     @Override
@@ -297,10 +300,11 @@ abstract class Stmt {
     final Token keyword;
     final Token path;
     final Token newName;
+    final List<Token> options;
 
     @Override
     public String toString() {
-      return "Import(" + keyword + ", " + path + ", " + newName + ")";
+      return "Import(" + keyword + ", " + path + ", " + newName + ", " + options + ")";
     }
   }
   static class Assign extends Stmt {
@@ -0,0 +1,151 @@
+package filtr;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import filtr.dataset.DatasetLoader;
+import filtr.dataset.ExportOptions;
+import filtr.dataset.RowPipeline;
+
+/**
+ * Runs a script shaped like a Unix filter one record at a time:
+ *
+ *   import stdin as d;
+ *   filter / fill / drop / rename on d (or on what the last filter produced) ...
+ *   export d to stdout as csv;
+ *
+ * Such a script never looks at more than one row at once, so it is run
+ * through a {@link RowPipeline} instead of loading the whole input. Values
+ * must be literals and every step must continue the same chain; anything
+ * else (a view, a print, a variable, a second use of a dataset) runs the
+ * normal way, as does JSON Lines input.
+ */
+class StreamPipeline {
+
+    private final Stmt.Import load;
+    private final List<Stmt> steps;
+    private final Stmt.Export export;
+
+    private StreamPipeline(Stmt.Import load, List<Stmt> steps, Stmt.Export export) {
+        this.load = load;
+        this.steps = steps;
+        this.export = export;
+    }
+
+    /** The pipeline this script is, or null when it has to run the normal way. */
+    static StreamPipeline plan(List<Stmt> statements) {
+        if (statements.size() < 2) return null;
+        if (!(statements.get(0) instanceof Stmt.Import load)) return null;
+        if (load.path.type != TokenType.IDENTIFIER || !load.options.isEmpty()) return null;
+        if (!(statements.get(statements.size() - 1) instanceof Stmt.Export export)) return null;
+        if (export.path.type != TokenType.IDENTIFIER) return null;
+        String format = export.format.lexeme.toLowerCase();
+        if (!format.equals("csv") && !format.equals("jsonl") && !format.equals("ndjson")) return null;
+
+        Set<String> names = new HashSet<>();
+        String current = load.newName.lexeme;
+        names.add(current);
+        List<Stmt> steps = new ArrayList<>(statements.subList(1, statements.size() - 1));
+        for (Stmt step : steps) {
+            if (step instanceof Stmt.Filter filter) {
+                if (!filter.dataset.lexeme.equals(current) || !(filter.expression instanceof Expr.Literal)) return null;
+                current = filter.newName.lexeme;
+                names.add(current);
+            } else if (step instanceof Stmt.Fill fill) {
+                if (!fill.dataset.lexeme.equals(current) || !(fill.value instanceof Expr.Literal)) return null;
+                if (fill.expression != null && !(fill.expression instanceof Expr.Literal)) return null;
+                // A fill column named like a dataset would resolve to that dataset
+                if (names.contains(fill.column.lexeme)) return null;
+            } else if (step instanceof Stmt.Drop drop) {
+                if (!drop.dataset.lexeme.equals(current)) return null;
+            } else if (step instanceof Stmt.Rename rename) {
+                if (!rename.dataset.lexeme.equals(current)) return null;
+            } else {
+                return null;
+            }
+        }
+        if (!export.dataset.lexeme.equals(current)) return null;
+        return new StreamPipeline(load, steps, export);
+    }
+
+    /** Runs the pipeline; false when the input turns out to need a normal run. */
+    boolean run() {
+        try {
+            if (DatasetLoader.startsWithObject(DatasetLoader.stdin())) return false;
+            try {
+                run(open());
+            } catch (IOException e) {
+                throw new RuntimeError(export.path, "Failed to export dataset to path: " + export.path.lexeme + " ");
+            }
+        } catch (RuntimeError error) {
+            filtR.runtimeError(error);
+        } catch (IOException e) {
+            filtR.runtimeError(new RuntimeError(load.path, "Failed to import dataset. " + e.getMessage()));
+        }
+        return true;
+    }
+
+    private RowPipeline open() {
+        try {
+            System.out.println("Streaming CSV dataset from standard input");
+            return RowPipeline.open(DatasetLoader.stdin());
+        } catch (IOException | IllegalArgumentException e) {
+            throw new RuntimeError(load.path, "Failed to import dataset. " + e.getMessage());
+        }
+    }
+
+    private void run(RowPipeline pipeline) throws IOException {
+        for (Stmt step : steps) {
+            if (step instanceof Stmt.Filter filter) {
+                Object value = literal(filter.expression);
+                System.out.println("Filtering dataset " + filter.dataset.lexeme + " on column " + filter.columnName.lexeme + " " + filter.operator.lexeme + " " + value);
+                try {
+                    pipeline.filter(filter.columnName.lexeme, filter.operator.lexeme, value);
+                } catch (IllegalArgumentException e) {
+                    throw new RuntimeError(filter.columnName, e.getMessage());
+                }
+            } else if (step instanceof Stmt.Fill fill) {
+                String conditionColumn = fill.conditionColumn != null ? fill.conditionColumn.lexeme : null;
+                String operator = fill.operator != null ? fill.operator.lexeme : null;
+                Object expression = fill.expression != null ? literal(fill.expression) : null;
+                try {
+                    pipeline.fill(fill.column.lexeme, literal(fill.value), conditionColumn, operator, expression, fill.keyword.lexeme);
+                } catch (IllegalArgumentException e) {
+                    throw new RuntimeError(fill.keyword, e.getMessage());
+                }
+            } else if (step instanceof Stmt.Drop drop) {
+                List<String> columns = new ArrayList<>();
+                for (Token token : drop.identifiers) {
+                    columns.add(token.lexeme);
+                }
+                try {
+                    pipeline.drop(columns);
+                } catch (IllegalArgumentException e) {
+                    throw new RuntimeError(drop.identifiers.get(0), e.getMessage());
+                }
+            } else if (step instanceof Stmt.Rename rename) {
+                String newName = rename.newName.lexeme.substring(1, rename.newName.lexeme.length() - 1);
+                try {
+                    pipeline.rename(rename.column.lexeme, newName);
+                } catch (IllegalArgumentException e) {
+                    throw new RuntimeError(rename.column, e.getMessage());
+                }
+            }
+        }
+
+        ExportOptions options = Interpreter.exportOptions(export.options);
+        try {
+            pipeline.writeTo(filtR.stdout, export.format.lexeme, options);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeError(export.format, e.getMessage());
+        }
+        System.out.println("Exported dataset to " + export.path.lexeme);
+    }
+
+    private static Object literal(Expr expr) {
+        return ((Expr.Literal) expr).value;
+    }
+}
@@ -0,0 +1,592 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Apache Arrow IPC file format (.arrow), read and written without the Arrow
+ * libraries. The file is the magic "ARROW1", a schema message, one dictionary
+ * batch per dictionary-encoded column, one record batch, and a footer that
+ * indexes them; metadata is FlatBuffers-encoded (see {@link FlatBuffers}).
+ *
+ * Typed column vectors already have Arrow's memory layout (little-endian
+ * values plus an LSB-first validity bitmap), so they are written straight
+ * from their buffers and, for a single-batch file, mapped straight back.
+ * Dictionary columns become dictionary-encoded Utf8; mixed-type columns are
+ * written as their text.
+ */
+final class ArrowFormat {
+    private static final byte[] MAGIC = {'A', 'R', 'R', 'O', 'W', '1'};
+    private static final short METADATA_V5 = 4;
+
+    // Message header types
+    private static final byte SCHEMA = 1;
+    private static final byte DICTIONARY_BATCH = 2;
+    private static final byte RECORD_BATCH = 3;
+
+    // Field type ids
+    private static final byte INT = 2;
+    private static final byte FLOATING_POINT = 3;
+    private static final byte UTF8 = 5;
+    private static final byte BOOL = 6;
+    private static final byte DATE = 8;
+
+    private static final short PRECISION_SINGLE = 1;
+    private static final short PRECISION_DOUBLE = 2;
+    private static final short DATE_DAY = 0;
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    private ArrowFormat() {
+    }
+
+    // ---- Writing ----
+
+    /** Writes one buffer of a record batch; must produce exactly the declared length. */
+    private interface Body {
+        void writeTo(BufferWriter writer) throws IOException;
+    }
+
+    private record Buffer(long length, Body body) {
+    }
+
+    /** How one column is laid out: its Arrow type, null count and buffers. */
+    private static final class Plan {
+        int rows;
+        byte typeId;
+        FlatBuffers.Table type;
+        long nullCount;
+        final List<Buffer> buffers = new ArrayList<>();
+        Plan dictionary; // values of a dictionary-encoded column
+        long dictionaryId;
+    }
+
+    static void write(OutputStream stream, List<String> names, Column[] columns, int rows) throws IOException {
+        BufferWriter writer = new BufferWriter(stream);
+        writer.put(ByteBuffer.wrap(MAGIC));
+        writer.align();
+
+        Plan[] plans = new Plan[columns.length];
+        for (int j = 0; j < columns.length; j++) {
+            plans[j] = plan(columns[j], rows);
+            if (plans[j].dictionary != null) plans[j].dictionaryId = j;
+        }
+        FlatBuffers.Table schema = schema(names, plans);
+        message(writer, SCHEMA, schema, 0);
+
+        List<long[]> dictionaries = new ArrayList<>();
+        for (Plan plan : plans) {
+            if (plan.dictionary == null) continue;
+            Plan[] values = {plan.dictionary};
+            FlatBuffers.Table batch = new FlatBuffers.Table()
+                .addLong(0, plan.dictionaryId)
+                .addTable(1, recordBatch(values, plan.dictionary.rows))
+                .addBool(2, false);
+            dictionaries.add(batch(writer, DICTIONARY_BATCH, batch, values));
+        }
+        long[] records = batch(writer, RECORD_BATCH, recordBatch(plans, rows), plans);
+
+        // End-of-stream marker, then the footer
+        writer.chunk(8).putInt(-1).putInt(0);
+        FlatBuffers.Table footer = new FlatBuffers.Table()
+            .addShort(0, METADATA_V5)
+            .addTable(1, schema)
+            .addStructs(2, dictionaries.size(), blocks(dictionaries))
+            .addStructs(3, 1, blocks(List.of(records)));
+        ByteBuffer encoded = FlatBuffers.encode(footer);
+        int length = encoded.remaining();
+        writer.put(encoded);
+        writer.chunk(4 + MAGIC.length).putInt(length).put(MAGIC);
+        writer.flush();
+    }
+
+    private static Plan plan(Column column, int rows) throws IOException {
+        Plan plan = new Plan();
+        if (column instanceof IntColumn ints) {
+            fixed(plan, ints.validity, rows, INT, intType(32));
+            plan.buffers.add(new Buffer(4L * rows, writer -> writer.ints(ints.buffer(), rows)));
+        } else if (column instanceof LongColumn longs) {
+            fixed(plan, longs.validity, rows, INT, intType(64));
+            plan.buffers.add(new Buffer(8L * rows, writer -> writer.longs(longs.buffer(), rows)));
+        } else if (column instanceof DoubleColumn doubles) {
+            fixed(plan, doubles.validity, rows, FLOATING_POINT, new FlatBuffers.Table().addShort(0, PRECISION_DOUBLE));
+            plan.buffers.add(new Buffer(8L * rows, writer -> writer.doubles(doubles.buffer(), rows)));
+        } else if (column instanceof DateColumn dates) {
+            fixed(plan, dates.validity, rows, DATE, new FlatBuffers.Table().addShort(0, DATE_DAY));
+            plan.buffers.add(new Buffer(4L * rows, writer -> writer.ints(dates.buffer(), rows)));
+        } else if (column instanceof BooleanColumn booleans) {
+            fixed(plan, booleans.validity, rows, BOOL, new FlatBuffers.Table());
+            plan.buffers.add(new Buffer(bitmapLength(rows), writer -> writer.bits(booleans.bits(), rows)));
+        } else if (column instanceof DictionaryColumn dict) {
+            fixed(plan, dict.validity, rows, UTF8, new FlatBuffers.Table());
+            plan.buffers.add(new Buffer(4L * rows, writer -> writer.ints(dict.codes(), rows)));
+            List<ByteBuffer> values = new ArrayList<>(dict.cardinality());
+            for (int code = 0; code < dict.cardinality(); code++) {
+                values.add(StandardCharsets.UTF_8.encode(dict.decode(code)));
+            }
+            plan.dictionary = utf8(values, null);
+        } else if (column instanceof Utf8Column utf8) {
+            List<ByteBuffer> values = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                values.add(utf8.isNull(i) ? null : utf8.bytes(i));
+            }
+            return utf8(values, utf8.validity);
+        } else {
+            Column numbers = numbers(column, rows);
+            if (numbers != null) return plan(numbers, rows);
+
+            // Other boxed columns go out as text: strings as they are, mixed cells as they print
+            List<ByteBuffer> values = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                Object value = column.get(i);
+                values.add(value == null ? null : StandardCharsets.UTF_8.encode(value.toString()));
+            }
+            return utf8(values, null);
+        }
+        return plan;
+    }
+
+    /**
+     * A boxed column holding only numbers (such as 1, 2.5, 3) as one typed
+     * vector: Int64 when every number is whole, Float64 once any is a double.
+     * Null when it holds anything else, or nothing but NULLs.
+     */
+    private static Column numbers(Column column, int rows) {
+        boolean present = false;
+        boolean fraction = false;
+        for (int i = 0; i < rows; i++) {
+            Object value = column.get(i);
+            if (value == null) continue;
+            if (value instanceof Double) {
+                fraction = true;
+            } else if (!(value instanceof Integer || value instanceof Long)) {
+                return null;
+            }
+            present = true;
+        }
+        if (!present) return null;
+
+        Column typed = fraction ? new DoubleColumn(rows) : new LongColumn(rows);
+        for (int i = 0; i < rows; i++) {
+            Number value = (Number) column.get(i);
+            typed.append(value == null ? null : fraction ? (Object) value.doubleValue() : (Object) value.longValue());
+        }
+        return typed;
+    }
+
+    private static FlatBuffers.Table intType(int bitWidth) {
+        return new FlatBuffers.Table().addInt(0, bitWidth).addBool(1, true);
+    }
+
+    private static long bitmapLength(int rows) {
+        return ((rows + 63L) >>> 6) * Long.BYTES;
+    }
+
+    /** Type and validity buffer shared by every column kind. */
+    private static void fixed(Plan plan, Bitmap validity, int rows, byte typeId, FlatBuffers.Table type) {
+        plan.rows = rows;
+        plan.typeId = typeId;
+        plan.type = type;
+        plan.nullCount = nullCount(validity, rows);
+        plan.buffers.add(new Buffer(bitmapLength(rows), writer -> writer.bits(validity, rows)));
+    }
+
+    private static long nullCount(Bitmap validity, int rows) {
+        long[] words = validity.words();
+        long present = 0;
+        for (int w = 0; w < (rows + 63) >>> 6 && w < words.length; w++) {
+            long word = words[w];
+            int bits = rows - (w << 6);
+            if (bits < 64) word &= (1L << bits) - 1;
+            present += Long.bitCount(word);
+        }
+        return rows - present;
+    }
+
+    /** A Utf8 column: validity, int32 offsets, then the bytes. Validity is derived when not given. */
+    private static Plan utf8(List<ByteBuffer> values, Bitmap validity) throws IOException {
+        int rows = values.size();
+        if (validity == null) {
+            validity = new Bitmap(rows);
+            for (int i = 0; i < rows; i++) {
+                validity.set(i, values.get(i) != null);
+            }
+        }
+        long total = 0;
+        for (ByteBuffer value : values) {
+            if (value != null) total += value.remaining();
+        }
+        if (total > Integer.MAX_VALUE) throw new IOException("String column too large for an Arrow Utf8 vector.");
+
+        Plan plan = new Plan();
+        fixed(plan, validity, rows, UTF8, new FlatBuffers.Table());
+        plan.buffers.add(new Buffer(4L * (rows + 1), writer -> {
+            int offset = 0;
+            writer.chunk(Integer.BYTES).putInt(offset);
+            for (ByteBuffer value : values) {
+                if (value != null) offset += value.remaining();
+                writer.chunk(Integer.BYTES).putInt(offset);
+            }
+        }));
+        plan.buffers.add(new Buffer(total, writer -> {
+            for (ByteBuffer value : values) {
+                if (value != null) writer.put(value.duplicate());
+            }
+        }));
+        return plan;
+    }
+
+    private static FlatBuffers.Table schema(List<String> names, Plan[] plans) {
+        List<FlatBuffers.Table> fields = new ArrayList<>(plans.length);
+        for (int j = 0; j < plans.length; j++) {
+            FlatBuffers.Table field = new FlatBuffers.Table()
+                .addString(0, names.get(j))
+                .addBool(1, true)
+                .addByte(2, plans[j].typeId)
+                .addTable(3, plans[j].type)
+                .addTables(5, List.of());
+            if (plans[j].dictionary != null) {
+                field.addTable(4, new FlatBuffers.Table()
+                    .addLong(0, plans[j].dictionaryId)
+                    .addTable(1, intType(32))
+                    .addBool(2, false));
+            }
+            fields.add(field);
+        }
+        return new FlatBuffers.Table()
+            .addShort(0, 0) // little-endian
+            .addTables(1, fields);
+    }
+
+    private static FlatBuffers.Table recordBatch(Plan[] plans, int rows) {
+        ByteBuffer nodes = ByteBuffer.allocate(16 * plans.length).order(ByteOrder.LITTLE_ENDIAN);
+        List<Buffer> all = new ArrayList<>();
+        for (Plan plan : plans) {
+            nodes.putLong(rows).putLong(plan.nullCount);
+            all.addAll(plan.buffers);
+        }
+        ByteBuffer buffers = ByteBuffer.allocate(16 * all.size()).order(ByteOrder.LITTLE_ENDIAN);
+        long offset = 0;
+        for (Buffer buffer : all) {
+            buffers.putLong(offset).putLong(buffer.length());
+            offset += align(buffer.length());
+        }
+        return new FlatBuffers.Table()
+            .addLong(0, rows)
+            .addStructs(1, plans.length, nodes.flip())
+            .addStructs(2, all.size(), buffers.flip());
+    }
+
+    private static long align(long length) {
+        return (length + 7) & -8;
+    }
+
+    /** Writes a batch message and its body; returns its footer block {offset, metadata length, body length}. */
+    private static long[] batch(BufferWriter writer, byte headerType, FlatBuffers.Table header, Plan[] plans) throws IOException {
+        long bodyLength = 0;
+        for (Plan plan : plans) {
+            for (Buffer buffer : plan.buffers) bodyLength += align(buffer.length());
+        }
+        long offset = writer.position();
+        long metadata = message(writer, headerType, header, bodyLength);
+        long start = writer.position();
+        for (Plan plan : plans) {
+            for (Buffer buffer : plan.buffers) {
+                writer.align();
+                buffer.body().writeTo(writer);
+            }
+        }
+        writer.align();
+        if (writer.position() - start != bodyLength) {
+            throw new IllegalStateException("Arrow body length mismatch.");
+        }
+        return new long[] {offset, metadata, bodyLength};
+    }
+
+    /** Encapsulated message: continuation marker, metadata length, padded metadata. Returns the bytes written. */
+    private static long message(BufferWriter writer, byte headerType, FlatBuffers.Table header, long bodyLength) throws IOException {
+        FlatBuffers.Table message = new FlatBuffers.Table()
+            .addShort(0, METADATA_V5)
+            .addByte(1, headerType)
+            .addTable(2, header)
+            .addLong(3, bodyLength);
+        ByteBuffer encoded = FlatBuffers.encode(message);
+        int length = encoded.remaining();
+        writer.chunk(8).putInt(-1).putInt(length);
+        writer.put(encoded);
+        return 8 + length;
+    }
+
+    private static ByteBuffer blocks(List<long[]> blocks) {
+        ByteBuffer packed = ByteBuffer.allocate(24 * blocks.size()).order(ByteOrder.LITTLE_ENDIAN);
+        for (long[] block : blocks) {
+            packed.putLong(block[0]).putInt((int) block[1]).putInt(0).putLong(block[2]);
+        }
+        return packed.flip();
+    }
+
+    // ---- Reading ----
+
+    /** Maps an .arrow file (a .arrow.gz is inflated first) into a dataset. */
+    static Dataset read(Path path, LoadOptions options) throws IOException {
+        try (FileRegions file = FileRegions.open(path)) {
+            long size = file.size();
+            int trailer = 4 + MAGIC.length;
+            if (size < 8 + trailer || !hasMagic(file.region(0, MAGIC.length)) || !hasMagic(file.region(size - MAGIC.length, MAGIC.length))) {
+                throw new IOException("Not an Arrow IPC file.");
+            }
+            int footerLength = file.region(size - trailer, 4).getInt();
+            if (footerLength <= 0 || footerLength > size - 8 - trailer) throw new IOException("Corrupt Arrow footer.");
+            FlatBuffers.Reader footer = FlatBuffers.Reader.root(file.region(size - trailer - footerLength, footerLength));
+
+            FlatBuffers.Reader schema = footer.table(1);
+            int count = schema.vectorLength(1);
+            List<String> names = new ArrayList<>(count);
+            FlatBuffers.Reader[] fields = new FlatBuffers.Reader[count];
+            for (int j = 0; j < count; j++) {
+                fields[j] = schema.table(1, j);
+                names.add(fields[j].string(0));
+            }
+
+            // Dictionaries by id; only string values are supported
+            ColumnStorage storage = options.storage();
+            Map<Long, List<String>> dictionaries = new HashMap<>();
+            for (int d = 0; d < footer.vectorLength(2); d++) {
+                Batch batch = batch(file, footer, 2, d, DICTIONARY_BATCH);
+                long id = batch.header.getLong(0, 0);
+                Column values = batch.column(type(valueField(fields, id)), null, storage);
+                List<String> strings = new ArrayList<>(values.size());
+                for (int i = 0; i < values.size(); i++) {
+                    strings.add((String) values.get(i));
+                }
+                dictionaries.put(id, strings);
+            }
+
+            int batches = footer.vectorLength(3);
+            List<Column[]> parts = new ArrayList<>(batches);
+            int rows = 0;
+            for (int b = 0; b < batches; b++) {
+                Batch batch = batch(file, footer, 3, b, RECORD_BATCH);
+                Column[] columns = new Column[count];
+                for (int j = 0; j < count; j++) {
+                    FlatBuffers.Reader encoding = fields[j].table(4);
+                    List<String> dictionary = null;
+                    if (encoding != null) {
+                        dictionary = dictionaries.get(encoding.getLong(0, 0));
+                        if (dictionary == null) throw new IOException("Missing Arrow dictionary for column " + names.get(j) + ".");
+                    }
+                    columns[j] = batch.column(type(fields[j]), encoding == null ? null : new Dictionary(dictionary, encoding.table(1)), storage);
+                }
+                rows += columns.length == 0 ? 0 : columns[0].size();
+                parts.add(columns);
+            }
+
+            // filtrID numbers the rows, as for any other import
+            List<String> columns = new ArrayList<>(count + 1);
+            columns.add("filtrID");
+            columns.addAll(names);
+            Column[] vectors = new Column[count + 1];
+            IntColumn ids = new IntColumn(Math.max(rows, 1), storage);
+            for (int i = 1; i <= rows; i++) {
+                ids.appendInt(i);
+            }
+            vectors[0] = ids;
+            for (int j = 0; j < count; j++) {
+                vectors[j + 1] = parts.size() == 1 ? parts.get(0)[j] : concat(parts, j, storage);
+                // Mapped buffers are read-only: any write goes to a copy
+                vectors[j + 1].markShared();
+            }
+            return DatasetLoader.newDataset(columns, vectors, storage);
+        }
+    }
+
+    private static boolean hasMagic(ByteBuffer bytes) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (bytes.get(i) != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    private static FlatBuffers.Reader valueField(FlatBuffers.Reader[] fields, long id) throws IOException {
+        for (FlatBuffers.Reader field : fields) {
+            FlatBuffers.Reader encoding = field.table(4);
+            if (encoding != null && encoding.getLong(0, 0) == id) return field;
+        }
+        throw new IOException("Arrow dictionary " + id + " belongs to no column.");
+    }
+
+    /** A field's type: its id and type table. */
+    private record Type(int id, FlatBuffers.Reader table) {
+    }
+
+    private static Type type(FlatBuffers.Reader field) {
+        return new Type(field.getByte(2, 0), field.table(3));
+    }
+
+    private record Dictionary(List<String> values, FlatBuffers.Reader indexType) {
+    }
+
+    /** Reads the message behind footer block {@code index} of vector {@code id}. */
+    private static Batch batch(FileRegions file, FlatBuffers.Reader footer, int id, int index, byte expected) throws IOException {
+        long offset = footer.structLong(id, index, 24, 0);
+        int metadata = footer.structInt(id, index, 24, 8);
+        long bodyLength = footer.structLong(id, index, 24, 16);
+        ByteBuffer prefix = file.region(offset, 8);
+        // Files from before the continuation marker start with the length itself
+        int skip = prefix.getInt(0) == -1 ? 8 : 4;
+        FlatBuffers.Reader message = FlatBuffers.Reader.root(file.region(offset + skip, metadata - skip));
+        if (message.getByte(1, 0) != expected) throw new IOException("Unexpected Arrow message type " + message.getByte(1, 0) + ".");
+        FlatBuffers.Reader header = message.table(2);
+        FlatBuffers.Reader records = expected == DICTIONARY_BATCH ? header.table(1) : header;
+        if (records.table(3) != null) throw new IOException("Compressed Arrow files are not supported.");
+        return new Batch(file, header, records, offset + metadata, bodyLength);
+    }
+
+    /** Walks the field nodes and buffers of one record batch in column order. */
+    private static final class Batch {
+        final FlatBuffers.Reader header;
+        private final FileRegions file;
+        private final FlatBuffers.Reader records;
+        private final long body;
+        private final long bodyLength;
+        private int node;
+        private int buffer;
+
+        Batch(FileRegions file, FlatBuffers.Reader header, FlatBuffers.Reader records, long body, long bodyLength) {
+            this.file = file;
+            this.header = header;
+            this.records = records;
+            this.body = body;
+            this.bodyLength = bodyLength;
+        }
+
+        private ByteBuffer next() throws IOException {
+            long offset = records.structLong(2, buffer, 16, 0);
+            long length = records.structLong(2, buffer, 16, 8);
+            buffer++;
+            if (offset + length > bodyLength) throw new IOException("Arrow buffer lies outside its batch.");
+            return file.region(body + offset, length);
+        }
+
+        Column column(Type type, Dictionary dictionary, ColumnStorage storage) throws IOException {
+            long length = records.structLong(1, node, 16, 0);
+            long nulls = records.structLong(1, node, 16, 8);
+            node++;
+            if (length > Integer.MAX_VALUE) throw new IOException("Arrow batch too large.");
+            int rows = (int) length;
+            ByteBuffer validityBuffer = next();
+            Bitmap validity = nulls == 0 ? present(rows) : bitmap(validityBuffer, rows);
+
+            if (dictionary != null) {
+                if (type.id() != UTF8) throw new IOException("Only string dictionaries are supported in Arrow files.");
+                IntBuffer codes = ints(next(), dictionary.indexType(), rows, storage);
+                return new DictionaryColumn(storage, dictionary.values(), codes, validity, rows);
+            }
+            switch (type.id()) {
+                case INT: {
+                    int bitWidth = type.table().getInt(0, 32);
+                    boolean signed = type.table().getBool(1, true);
+                    if (bitWidth == 64 && !signed) throw new IOException("Unsigned 64-bit Arrow integers are not supported.");
+                    if (bitWidth == 64) return new LongColumn(storage, next().asLongBuffer(), validity, rows);
+                    if (bitWidth == 32 && !signed) {
+                        LongBuffer values = storage.longs(rows);
+                        ByteBuffer source = next();
+                        for (int i = 0; i < rows; i++) {
+                            values.put(i, Integer.toUnsignedLong(source.getInt(i * 4)));
+                        }
+                        return new LongColumn(storage, values, validity, rows);
+                    }
+                    return new IntColumn(storage, ints(next(), type.table(), rows, storage), validity, rows);
+                }
+                case FLOATING_POINT: {
+                    int precision = type.table().getShort(0, 0);
+                    if (precision == PRECISION_DOUBLE) return new DoubleColumn(storage, next().asDoubleBuffer(), validity, rows);
+                    if (precision != PRECISION_SINGLE) throw new IOException("Half-precision Arrow floats are not supported.");
+                    DoubleBuffer values = storage.doubles(rows);
+                    ByteBuffer source = next();
+                    for (int i = 0; i < rows; i++) {
+                        values.put(i, source.getFloat(i * 4));
+                    }
+                    return new DoubleColumn(storage, values, validity, rows);
+                }
+                case BOOL:
+                    return new BooleanColumn(bitmap(next(), rows), validity, rows);
+                case DATE: {
+                    ByteBuffer source = next();
+                    if (type.table().getShort(0, 1) == DATE_DAY) return new DateColumn(storage, source.asIntBuffer(), validity, rows);
+                    IntBuffer days = storage.ints(rows);
+                    for (int i = 0; i < rows; i++) {
+                        days.put(i, (int) Math.floorDiv(source.getLong(i * 8), MILLIS_PER_DAY));
+                    }
+                    return new DateColumn(storage, days, validity, rows);
+                }
+                case UTF8: {
+                    IntBuffer offsets = next().asIntBuffer();
+                    ByteBuffer data = next();
+                    IntBuffer lengths = storage.ints(rows);
+                    for (int i = 0; i < rows; i++) {
+                        lengths.put(i, offsets.get(i + 1) - offsets.get(i));
+                    }
+                    return new Utf8Column(storage, data, offsets, lengths, validity, rows);
+                }
+                default:
+                    throw new IOException("Unsupported Arrow type " + type.id() + ".");
+            }
+        }
+    }
+
+    /** 8-, 16- or 32-bit integers widened to an int buffer; 32-bit ones are used in place. */
+    private static IntBuffer ints(ByteBuffer source, FlatBuffers.Reader intType, int rows, ColumnStorage storage) throws IOException {
+        int bitWidth = intType.getInt(0, 32);
+        boolean signed = intType.getBool(1, true);
+        if (bitWidth == 32) return source.asIntBuffer();
+        IntBuffer values = storage.ints(rows);
+        for (int i = 0; i < rows; i++) {
+            int value;
+            if (bitWidth == 8) value = signed ? source.get(i) : source.get(i) & 0xFF;
+            else if (bitWidth == 16) value = signed ? source.getShort(i * 2) : source.getShort(i * 2) & 0xFFFF;
+            else throw new IOException("Unsupported Arrow integer width " + bitWidth + ".");
+            values.put(i, value);
+        }
+        return values;
+    }
+
+    private static Bitmap present(int rows) {
+        Bitmap bitmap = new Bitmap(rows);
+        for (int i = 0; i < rows; i++) {
+            bitmap.set(i);
+        }
+        return bitmap;
+    }
+
+    private static Bitmap bitmap(ByteBuffer bytes, int rows) {
+        long[] words = new long[Math.max(1, (rows + 63) >>> 6)];
+        int full = Math.min(words.length, bytes.remaining() / Long.BYTES);
+        bytes.asLongBuffer().get(words, 0, full);
+        for (int b = full * Long.BYTES; b < bytes.remaining() && (b >>> 3) < words.length; b++) {
+            words[b >>> 3] |= (bytes.get(b) & 0xFFL) << ((b & 7) << 3);
+        }
+        return new Bitmap(words);
+    }
+
+    /** Joins one column across record batches. */
+    private static Column concat(List<Column[]> parts, int column, ColumnStorage storage) {
+        Column[] pieces = new Column[parts.size()];
+        int[] sizes = new int[pieces.length];
+        for (int k = 0; k < pieces.length; k++) {
+            pieces[k] = parts.get(k)[column];
+            sizes[k] = pieces[k].size();
+        }
+        return ColumnBuilder.concat(pieces, sizes, storage);
+    }
+}
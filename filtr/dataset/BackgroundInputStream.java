@@ -0,0 +1,88 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads a source stream on its own thread and hands over filled buffers
+ * through a small bounded queue, so producing the bytes (decompressing, say)
+ * overlaps with whatever consumes them.
+ */
+final class BackgroundInputStream extends InputStream {
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int QUEUE_DEPTH = 4;
+    private static final byte[] END = new byte[0];
+
+    private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(QUEUE_DEPTH);
+    private final Thread worker;
+    private volatile IOException failure;
+    private byte[] current = new byte[0];
+    private int position;
+
+    BackgroundInputStream(InputStream source, String name) {
+        worker = new Thread(() -> pump(source), name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void pump(InputStream source) {
+        try (source) {
+            while (true) {
+                byte[] buffer = new byte[BUFFER_SIZE];
+                int read = source.readNBytes(buffer, 0, buffer.length);
+                if (read == 0) break;
+                queue.put(read == buffer.length ? buffer : Arrays.copyOf(buffer, read));
+            }
+        } catch (IOException e) {
+            failure = e;
+        } catch (InterruptedException e) {
+            return; // closed early by the reader
+        }
+        try {
+            queue.put(END);
+        } catch (InterruptedException ignore) {
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!ensureAvailable()) return -1;
+        return current[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        if (!ensureAvailable()) return -1;
+        int count = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    private boolean ensureAvailable() throws IOException {
+        if (current == END) return false;
+        if (position < current.length) return true;
+        try {
+            current = queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while reading " + worker.getName() + ".", e);
+        }
+        position = 0;
+        if (current == END) {
+            if (failure != null) throw failure;
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        worker.interrupt();
+        queue.clear();
+    }
+}
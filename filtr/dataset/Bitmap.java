@@ -0,0 +1,85 @@
+package filtr.dataset;
+
+import java.util.Arrays;
+
+/** Growable bit vector used for column validity (set = present) and boolean values. */
+final class Bitmap {
+    private long[] words;
+
+    Bitmap(int capacity) {
+        this.words = new long[wordsFor(capacity)];
+    }
+
+    Bitmap(long[] words) {
+        this.words = words;
+    }
+
+    private static int wordsFor(int bits) {
+        return Math.max(1, (bits + 63) >>> 6);
+    }
+
+    boolean get(int index) {
+        return (words[index >>> 6] & (1L << index)) != 0;
+    }
+
+    void set(int index) {
+        ensureCapacity(index + 1);
+        words[index >>> 6] |= 1L << index;
+    }
+
+    void clear(int index) {
+        ensureCapacity(index + 1);
+        words[index >>> 6] &= ~(1L << index);
+    }
+
+    void set(int index, boolean value) {
+        if (value) set(index); else clear(index);
+    }
+
+    void ensureCapacity(int bits) {
+        int needed = wordsFor(bits);
+        if (needed > words.length) {
+            words = Arrays.copyOf(words, Math.max(needed, words.length + (words.length >> 1) + 1));
+        }
+    }
+
+    /**
+     * Sets the bits among the first {@code count} of {@code source} at
+     * {@code at} onwards; the bits they land on must be clear.
+     */
+    void or(Bitmap source, int count, int at) {
+        if (count == 0) return;
+        ensureCapacity(at + count);
+        int shift = at & 63;
+        int base = at >>> 6;
+        int last = (count - 1) >>> 6;
+        for (int w = 0; w <= last && w < source.words.length; w++) {
+            long word = source.words[w];
+            if (w == last && (count & 63) != 0) word &= (1L << count) - 1;
+            words[base + w] |= word << shift;
+            if (shift != 0 && (word >>> (64 - shift)) != 0) words[base + w + 1] |= word >>> (64 - shift);
+        }
+    }
+
+    /** The backing words; bits past the column's size are unspecified. */
+    long[] words() {
+        return words;
+    }
+
+    /** Bytes in the backing words. */
+    long bytes() {
+        return (long) words.length * Long.BYTES;
+    }
+
+    Bitmap copy() {
+        return new Bitmap(words.clone());
+    }
+
+    Bitmap select(int[] rows) {
+        Bitmap selected = new Bitmap(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            if (get(rows[i])) selected.words[i >>> 6] |= 1L << i;
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,92 @@
+package filtr.dataset;
+
+import java.util.BitSet;
+
+/** Column of booleans stored one bit per row; small enough to always stay on the heap. */
+public class BooleanColumn extends PrimitiveColumn {
+    private Bitmap values;
+
+    public BooleanColumn(int capacity) {
+        super(capacity, ColumnStorage.HEAP);
+        this.values = new Bitmap(capacity);
+    }
+
+    BooleanColumn(Bitmap values, Bitmap validity, int size) {
+        super(ColumnStorage.HEAP, validity, size);
+        this.values = values;
+    }
+
+    public boolean getBoolean(int row) {
+        return values.get(row);
+    }
+
+    /** One bit per row; only meaningful where the row is valid. */
+    Bitmap bits() {
+        return values;
+    }
+
+    @Override
+    public Object get(int row) {
+        return isNull(row) ? null : values.get(row);
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return value == null || value instanceof Boolean;
+    }
+
+    @Override
+    public void set(int row, Object value) {
+        if (value == null) {
+            validity.clear(row);
+            return;
+        }
+        values.set(row, (Boolean) value);
+        validity.set(row);
+    }
+
+    @Override
+    public void append(Object value) {
+        int row = nextRow(value != null);
+        values.set(row, value != null && (Boolean) value);
+    }
+
+    public void appendBoolean(boolean value) {
+        int row = nextRow(true);
+        values.set(row, value);
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        values.ensureCapacity(capacity);
+    }
+
+    @Override
+    protected long valueBytes() {
+        return values.bytes();
+    }
+
+    @Override
+    public Column copy() {
+        return new BooleanColumn(values.copy(), validity.copy(), size);
+    }
+
+    @Override
+    public Column select(int[] rows) {
+        return new BooleanColumn(values.select(rows), validity.select(rows), rows.length);
+    }
+
+    @Override
+    public BitSet match(String operator, Object value, int[] rows) {
+        if (!(value instanceof Boolean right)) return super.match(operator, value, rows);
+
+        int op = Comparisons.opcode(operator);
+        BitSet result = new BitSet(size);
+        int count = rows == null ? size : rows.length;
+        for (int k = 0; k < count; k++) {
+            int i = rows == null ? k : rows[k];
+            if (validity.get(i) && Comparisons.test(op, Boolean.compare(values.get(i), right))) result.set(i);
+        }
+        return result;
+    }
+}
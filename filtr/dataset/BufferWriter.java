@@ -0,0 +1,117 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Sequential little-endian writer for the binary formats. Column buffers are
+ * copied out in bulk through one staging chunk, and each starts on an 8-byte
+ * boundary. The buffer methods return {offset, length} of what they wrote.
+ */
+final class BufferWriter {
+    private static final int CHUNK = 1 << 16;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer chunk = ByteBuffer.allocate(CHUNK).order(ByteOrder.LITTLE_ENDIAN);
+    private long position;
+
+    BufferWriter(OutputStream out) {
+        this.channel = Channels.newChannel(out);
+    }
+
+    /** Bytes written so far, including any still staged. */
+    long position() {
+        return position + chunk.position();
+    }
+
+    /** The staging chunk, flushed first if it has less than {@code needed} bytes free. */
+    ByteBuffer chunk(int needed) throws IOException {
+        if (chunk.remaining() < needed) flush();
+        return chunk;
+    }
+
+    void flush() throws IOException {
+        chunk.flip();
+        while (chunk.hasRemaining()) {
+            position += channel.write(chunk);
+        }
+        chunk.clear();
+    }
+
+    /** Writes these bytes, staging small ones and passing large ones straight through. */
+    void put(ByteBuffer bytes) throws IOException {
+        if (bytes.remaining() <= chunk.remaining()) {
+            chunk.put(bytes);
+            return;
+        }
+        flush();
+        if (bytes.remaining() <= chunk.remaining()) {
+            chunk.put(bytes);
+            return;
+        }
+        while (bytes.hasRemaining()) {
+            position += channel.write(bytes);
+        }
+    }
+
+    /** Pads to the next 8-byte boundary and returns the offset the next buffer starts at. */
+    long align() throws IOException {
+        int padding = (int) (-position() & 7);
+        chunk(padding).put(new byte[padding]);
+        return position();
+    }
+
+    /** A bitmap as whole little-endian words covering {@code rows} bits. */
+    long[] bits(Bitmap bitmap, int rows) throws IOException {
+        long start = align();
+        long[] words = bitmap.words();
+        int count = (rows + 63) >>> 6;
+        for (int i = 0; i < count; i++) {
+            chunk(Long.BYTES).putLong(i < words.length ? words[i] : 0L);
+        }
+        return new long[] {start, position() - start};
+    }
+
+    long[] ints(IntBuffer values, int rows) throws IOException {
+        long start = align();
+        for (int i = 0; i < rows; ) {
+            flush();
+            int count = Math.min(CHUNK / Integer.BYTES, rows - i);
+            chunk.asIntBuffer().put(values.slice(i, count));
+            chunk.position(count * Integer.BYTES);
+            i += count;
+        }
+        return new long[] {start, position() - start};
+    }
+
+    long[] longs(LongBuffer values, int rows) throws IOException {
+        long start = align();
+        for (int i = 0; i < rows; ) {
+            flush();
+            int count = Math.min(CHUNK / Long.BYTES, rows - i);
+            chunk.asLongBuffer().put(values.slice(i, count));
+            chunk.position(count * Long.BYTES);
+            i += count;
+        }
+        return new long[] {start, position() - start};
+    }
+
+    long[] doubles(DoubleBuffer values, int rows) throws IOException {
+        long start = align();
+        for (int i = 0; i < rows; ) {
+            flush();
+            int count = Math.min(CHUNK / Double.BYTES, rows - i);
+            chunk.asDoubleBuffer().put(values.slice(i, count));
+            chunk.position(count * Double.BYTES);
+            i += count;
+        }
+        return new long[] {start, position() - start};
+    }
+}
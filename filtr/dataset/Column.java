@@ -0,0 +1,115 @@
+package filtr.dataset;
+
+import java.util.BitSet;
+
+/**
+ * One contiguous vector of cells for a single dataset column.
+ * Rows are addressed by index; a NULL cell is simply a null value.
+ */
+public abstract class Column {
+
+    /** Rough heap cost of one boxed cell: the reference plus a small object. */
+    static final long BOXED_CELL_BYTES = 48;
+    /** Rough heap cost of a String before its characters. */
+    static final long STRING_OVERHEAD = 40;
+
+    private boolean shared;
+
+    public abstract int size();
+
+    public abstract Object get(int row);
+
+    public abstract void set(int row, Object value);
+
+    public abstract void append(Object value);
+
+    public boolean isNull(int row) {
+        return get(row) == null;
+    }
+
+    /** Whether set/append can store this value without widening the column. */
+    public abstract boolean accepts(Object value);
+
+    /** A boxed copy of this column that accepts any value. */
+    public Column widen() {
+        Column widened = new ObjectColumn(size());
+        for (int i = 0; i < size(); i++) {
+            widened.append(get(i));
+        }
+        return widened;
+    }
+
+    /**
+     * Marks this vector as referenced by more than one dataset. Shared vectors
+     * are never written in place; the writer takes a {@link #copy()} first.
+     */
+    void markShared() {
+        shared = true;
+    }
+
+    boolean isShared() {
+        return shared;
+    }
+
+    /** Approximate bytes this vector keeps alive, for sizing caches. */
+    long estimatedBytes() {
+        return size() * BOXED_CELL_BYTES;
+    }
+
+    /** Deep copy, so the result can be mutated independently. */
+    public abstract Column copy();
+
+    /** Gathers the given rows (in order) into a new column. */
+    public abstract Column select(int[] rows);
+
+    /** Rows holding NULL. */
+    public BitSet nulls() {
+        BitSet result = new BitSet(size());
+        for (int i = 0; i < size(); i++) {
+            if (isNull(i)) result.set(i);
+        }
+        return result;
+    }
+
+    /** Rows holding a blank string. */
+    public BitSet blanks() {
+        BitSet result = new BitSet(size());
+        for (int i = 0; i < size(); i++) {
+            if (get(i) instanceof String s && s.isBlank()) result.set(i);
+        }
+        return result;
+    }
+
+    /** Writes the same value into every selected row; the value must be accepted. */
+    public void fill(BitSet rows, Object value) {
+        for (int i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+            set(i, value);
+        }
+    }
+
+    /**
+     * Rows whose cell satisfies {@code cell operator value}. NULL cells never match.
+     */
+    public final BitSet match(String operator, Object value) {
+        return match(operator, value, null);
+    }
+
+    /**
+     * As {@link #match(String, Object)}, but only the listed rows are tested
+     * (all rows when {@code rows} is null). Typed columns override this to
+     * compare primitives directly.
+     */
+    public BitSet match(String operator, Object value, int[] rows) {
+        int op = Comparisons.opcode(operator);
+        Object right = Comparisons.coerce(value);
+        BitSet result = new BitSet(size());
+        int count = rows == null ? size() : rows.length;
+        for (int k = 0; k < count; k++) {
+            int i = rows == null ? k : rows[k];
+            Object cell = get(i);
+            if (cell == null) continue;
+            if (Comparisons.matches(Comparisons.coerce(cell), op, right)) result.set(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,313 @@
+package filtr.dataset;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Accumulates cells for one column, picking a typed vector from the first
+ * non-null value and widening to an {@link ObjectColumn} if a later cell
+ * doesn't fit. Strings start dictionary-encoded and stay that way only
+ * while the column has few distinct values.
+ */
+public class ColumnBuilder {
+    private final int capacity;
+    private final ColumnStorage storage;
+    private Column column;
+    private int leadingNulls;
+    private Utf8Interner interner;
+
+    public ColumnBuilder(int capacity) {
+        this(capacity, ColumnStorage.HEAP);
+    }
+
+    public ColumnBuilder(int capacity, ColumnStorage storage) {
+        this.capacity = capacity;
+        this.storage = storage;
+    }
+
+    public void append(Object value) {
+        if (column == null) {
+            if (value == null) {
+                leadingNulls++;
+                return;
+            }
+            column = forValue(value, capacity, storage);
+            for (int i = 0; i < leadingNulls; i++) {
+                column.append(null);
+            }
+        }
+        if (!column.accepts(value)) {
+            column = column.widen();
+        }
+        column.append(value);
+        if (column instanceof DictionaryColumn dict && dict.cardinality() > DictionaryColumn.MAX_CARDINALITY) {
+            column = plainStrings(dict, storage);
+        }
+    }
+
+    /** As {@link #append}, without boxing while the column holds ints. */
+    public void appendInt(int value) {
+        if (column instanceof IntColumn ints) {
+            ints.appendInt(value);
+        } else {
+            append(value);
+        }
+    }
+
+    /** As {@link #append}, without boxing while the column holds doubles. */
+    public void appendDouble(double value) {
+        if (column instanceof DoubleColumn doubles) {
+            doubles.appendDouble(value);
+        } else {
+            append(value);
+        }
+    }
+
+    /**
+     * Appends a string given as UTF-8 bytes. A UTF-8 column takes the bytes as
+     * they are; while the column is dictionary-encoded each distinct value is
+     * decoded only once.
+     */
+    void appendUtf8(ByteBuffer source, int offset, int length) {
+        if (column instanceof Utf8Column utf8) {
+            utf8.appendUtf8(source, offset, length);
+        } else if (column == null || column instanceof DictionaryColumn) {
+            if (interner == null) interner = new Utf8Interner(DictionaryColumn.MAX_CARDINALITY + 1);
+            append(interner.intern(source, offset, length));
+        } else {
+            byte[] bytes = new byte[length];
+            source.get(offset, bytes);
+            append(new String(bytes, StandardCharsets.UTF_8));
+        }
+    }
+
+    public Column build() {
+        if (column == null) {
+            column = new ObjectColumn(leadingNulls);
+            for (int i = 0; i < leadingNulls; i++) {
+                column.append(null);
+            }
+        }
+        if (column instanceof DictionaryColumn dict && !dict.worthEncoding()) {
+            column = plainStrings(dict, storage);
+        }
+        return column;
+    }
+
+    /** Off-heap strings stay off-heap as UTF-8; on the heap a boxed column is cheapest. */
+    private static Column plainStrings(DictionaryColumn dict, ColumnStorage storage) {
+        if (storage == ColumnStorage.HEAP) return dict.widen();
+        Column plain = new Utf8Column(dict.size(), storage);
+        for (int i = 0; i < dict.size(); i++) {
+            plain.append(dict.get(i));
+        }
+        return plain;
+    }
+
+    /**
+     * Joins pieces of one column end to end, such as the chunks of a parallel
+     * load. A null piece stands for {@code sizes[k]} NULLs, as does a piece
+     * holding nothing but NULLs. When the other pieces share a vector class
+     * they are joined buffer by buffer, with dictionaries merged once per
+     * distinct value. Only pieces of differing types are appended cell by
+     * cell, so the column is inferred as a single load would infer it.
+     */
+    static Column concat(Column[] parts, int[] sizes, ColumnStorage storage) {
+        int rows = 0;
+        for (int size : sizes) {
+            rows += size;
+        }
+
+        Class<?> type = null;
+        for (Column part : parts) {
+            if (part == null || allNull(part)) continue;
+            if (type == null) {
+                type = part.getClass();
+            } else if (type != part.getClass()) {
+                return boxed(parts, sizes, rows, storage);
+            }
+        }
+        if (type == IntColumn.class) {
+            IntBuffer values = storage.ints(rows);
+            forEach(parts, sizes, type, (part, at, size) -> values.put(at, ((IntColumn) part).buffer(), 0, size));
+            return new IntColumn(storage, values, validity(parts, sizes, rows, type), rows);
+        }
+        if (type == LongColumn.class) {
+            LongBuffer values = storage.longs(rows);
+            forEach(parts, sizes, type, (part, at, size) -> values.put(at, ((LongColumn) part).buffer(), 0, size));
+            return new LongColumn(storage, values, validity(parts, sizes, rows, type), rows);
+        }
+        if (type == DoubleColumn.class) {
+            DoubleBuffer values = storage.doubles(rows);
+            forEach(parts, sizes, type, (part, at, size) -> values.put(at, ((DoubleColumn) part).buffer(), 0, size));
+            return new DoubleColumn(storage, values, validity(parts, sizes, rows, type), rows);
+        }
+        if (type == DateColumn.class) {
+            IntBuffer days = storage.ints(rows);
+            forEach(parts, sizes, type, (part, at, size) -> days.put(at, ((DateColumn) part).buffer(), 0, size));
+            return new DateColumn(storage, days, validity(parts, sizes, rows, type), rows);
+        }
+        if (type == BooleanColumn.class) {
+            Bitmap values = new Bitmap(rows);
+            forEach(parts, sizes, type, (part, at, size) -> values.or(((BooleanColumn) part).bits(), size, at));
+            return new BooleanColumn(values, validity(parts, sizes, rows, type), rows);
+        }
+        if (type == DictionaryColumn.class) return concatDictionaries(parts, sizes, rows, storage);
+        if (type == Utf8Column.class) return concatUtf8(parts, sizes, rows, storage);
+        if (type == ObjectColumn.class && !onlyStrings(parts)) {
+            // Mixed pieces stay mixed; only strings are worth inferring again
+            Object[] values = new Object[Math.max(rows, 1)];
+            forEach(parts, sizes, type, (part, at, size) -> {
+                for (int i = 0; i < size; i++) {
+                    values[at + i] = part.get(i);
+                }
+            });
+            return new ObjectColumn(values, rows);
+        }
+        return boxed(parts, sizes, rows, storage);
+    }
+
+    /** A piece of a joined column and the row it starts at. */
+    private interface PieceAction {
+        void accept(Column part, int at, int size);
+    }
+
+    /** Runs the action on each piece of the given class, skipping NULL pieces. */
+    private static void forEach(Column[] parts, int[] sizes, Class<?> type, PieceAction action) {
+        int at = 0;
+        for (int k = 0; k < parts.length; k++) {
+            if (type.isInstance(parts[k])) action.accept(parts[k], at, sizes[k]);
+            at += sizes[k];
+        }
+    }
+
+    private static boolean allNull(Column part) {
+        if (!(part instanceof ObjectColumn)) return false; // what a builder that saw only NULLs makes
+        for (int i = 0; i < part.size(); i++) {
+            if (part.get(i) != null) return false;
+        }
+        return true;
+    }
+
+    private static boolean onlyStrings(Column[] parts) {
+        for (Column part : parts) {
+            if (part == null) continue;
+            for (int i = 0; i < part.size(); i++) {
+                Object value = part.get(i);
+                if (value != null && !(value instanceof String)) return false;
+            }
+        }
+        return true;
+    }
+
+    private static Bitmap validity(Column[] parts, int[] sizes, int rows, Class<?> type) {
+        Bitmap validity = new Bitmap(rows);
+        forEach(parts, sizes, type, (part, at, size) -> validity.or(((PrimitiveColumn) part).validity, size, at));
+        return validity;
+    }
+
+    /** Re-codes each piece against one merged dictionary, in order of first appearance. */
+    private static Column concatDictionaries(Column[] parts, int[] sizes, int rows, ColumnStorage storage) {
+        List<String> dictionary = new ArrayList<>();
+        Map<String, Integer> index = new HashMap<>();
+        IntBuffer codes = storage.ints(rows);
+        forEach(parts, sizes, DictionaryColumn.class, (part, at, size) -> {
+            DictionaryColumn dict = (DictionaryColumn) part;
+            int[] recode = new int[dict.cardinality()];
+            for (int code = 0; code < recode.length; code++) {
+                recode[code] = index.computeIfAbsent(dict.decode(code), value -> {
+                    dictionary.add(value);
+                    return dictionary.size() - 1;
+                });
+            }
+            for (int i = 0; i < size; i++) {
+                if (!dict.isNull(i)) codes.put(at + i, recode[dict.getCode(i)]);
+            }
+        });
+        DictionaryColumn merged = new DictionaryColumn(storage, dictionary, codes, validity(parts, sizes, rows, DictionaryColumn.class), rows);
+        if (merged.cardinality() > DictionaryColumn.MAX_CARDINALITY || !merged.worthEncoding()) {
+            return plainStrings(merged, storage);
+        }
+        return merged;
+    }
+
+    /**
+     * Copies each piece's bytes after the last, without decoding them. Joined
+     * strings that repeat enough to dictionary-encode, or that belong on the
+     * heap, are appended cell by cell instead.
+     */
+    private static Column concatUtf8(Column[] parts, int[] sizes, int rows, ColumnStorage storage) {
+        if (storage == ColumnStorage.HEAP || fewDistinct(parts, sizes, rows)) return boxed(parts, sizes, rows, storage);
+
+        long total = 0;
+        for (int k = 0; k < parts.length; k++) {
+            if (!(parts[k] instanceof Utf8Column utf8)) continue;
+            for (int i = 0; i < sizes[k]; i++) {
+                if (!utf8.isNull(i)) total += utf8.bytes(i).remaining();
+            }
+        }
+        if (total > Integer.MAX_VALUE) return boxed(parts, sizes, rows, storage);
+
+        ByteBuffer data = storage.bytes((int) total);
+        IntBuffer starts = storage.ints(rows);
+        IntBuffer lengths = storage.ints(rows);
+        int[] used = {0};
+        forEach(parts, sizes, Utf8Column.class, (part, at, size) -> {
+            Utf8Column utf8 = (Utf8Column) part;
+            for (int i = 0; i < size; i++) {
+                if (utf8.isNull(i)) continue;
+                ByteBuffer bytes = utf8.bytes(i);
+                data.put(used[0], bytes, bytes.position(), bytes.remaining());
+                starts.put(at + i, used[0]);
+                lengths.put(at + i, bytes.remaining());
+                used[0] += bytes.remaining();
+            }
+        });
+        data.limit(used[0]);
+        return new Utf8Column(storage, data, starts, lengths, validity(parts, sizes, rows, Utf8Column.class), rows);
+    }
+
+    /** Whether the joined UTF-8 pieces would be worth dictionary-encoding, judged by their bytes. */
+    private static boolean fewDistinct(Column[] parts, int[] sizes, int rows) {
+        Set<ByteBuffer> distinct = new HashSet<>();
+        for (int k = 0; k < parts.length; k++) {
+            if (!(parts[k] instanceof Utf8Column utf8)) continue;
+            for (int i = 0; i < sizes[k]; i++) {
+                if (!utf8.isNull(i) && distinct.add(utf8.bytes(i)) && distinct.size() > DictionaryColumn.MAX_CARDINALITY) return false;
+            }
+        }
+        return distinct.size() * 2 <= rows;
+    }
+
+    /** Appends every cell again, for pieces whose types differ. */
+    private static Column boxed(Column[] parts, int[] sizes, int rows, ColumnStorage storage) {
+        ColumnBuilder builder = new ColumnBuilder(rows, storage);
+        for (int k = 0; k < parts.length; k++) {
+            for (int i = 0; i < sizes[k]; i++) {
+                builder.append(parts[k] == null ? null : parts[k].get(i));
+            }
+        }
+        return builder.build();
+    }
+
+    /** An empty column specialized for the type of this value. */
+    static Column forValue(Object value, int capacity, ColumnStorage storage) {
+        if (value instanceof Integer) return new IntColumn(capacity, storage);
+        if (value instanceof Long) return new LongColumn(capacity, storage);
+        if (value instanceof Double) return new DoubleColumn(capacity, storage);
+        if (value instanceof Boolean) return new BooleanColumn(capacity);
+        if (value instanceof LocalDate) return new DateColumn(capacity, storage);
+        if (value instanceof String) return new DictionaryColumn(capacity, storage);
+        return new ObjectColumn(capacity);
+    }
+}
@@ -0,0 +1,51 @@
+package filtr.dataset;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Where primitive column vectors keep their values. The heap storage wraps
+ * plain arrays; {@link OffHeapArena} hands out buffers outside the Java heap.
+ */
+public interface ColumnStorage {
+
+    IntBuffer ints(int capacity);
+
+    LongBuffer longs(int capacity);
+
+    DoubleBuffer doubles(int capacity);
+
+    ByteBuffer bytes(int capacity);
+
+    /**
+     * Takes back a buffer from this storage that nothing reads any more, so
+     * its space can be reused. Heap buffers are simply left to the collector.
+     */
+    default void free(Buffer buffer) {
+    }
+
+    ColumnStorage HEAP = new ColumnStorage() {
+        @Override
+        public IntBuffer ints(int capacity) {
+            return IntBuffer.allocate(Math.max(capacity, 1));
+        }
+
+        @Override
+        public LongBuffer longs(int capacity) {
+            return LongBuffer.allocate(Math.max(capacity, 1));
+        }
+
+        @Override
+        public DoubleBuffer doubles(int capacity) {
+            return DoubleBuffer.allocate(Math.max(capacity, 1));
+        }
+
+        @Override
+        public ByteBuffer bytes(int capacity) {
+            return ByteBuffer.allocate(Math.max(capacity, 1));
+        }
+    };
+}
@@ -0,0 +1,90 @@
+package filtr.dataset;
+
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * The comparison rules shared by filter, fill ... where, and conditional add column.
+ * Operators are resolved to an opcode once so per-row loops don't switch on strings.
+ */
+final class Comparisons {
+    static final int EQ = 0;
+    static final int NE = 1;
+    static final int LT = 2;
+    static final int LE = 3;
+    static final int GT = 4;
+    static final int GE = 5;
+
+    private Comparisons() {}
+
+    static int opcode(String operator) {
+        return switch (operator) {
+            case "==" -> EQ;
+            case "!=" -> NE;
+            case "<"  -> LT;
+            case "<=" -> LE;
+            case ">"  -> GT;
+            case ">=" -> GE;
+            default -> throw new IllegalArgumentException("Unsupported operator: " + operator);
+        };
+    }
+
+    /** Applies an opcode to the sign of a compareTo result. */
+    static boolean test(int op, int cmp) {
+        return switch (op) {
+            case EQ -> cmp == 0;
+            case NE -> cmp != 0;
+            case LT -> cmp < 0;
+            case LE -> cmp <= 0;
+            case GT -> cmp > 0;
+            default -> cmp >= 0;
+        };
+    }
+
+    static boolean test(int op, double left, double right) {
+        return switch (op) {
+            case EQ -> left == right;
+            case NE -> left != right;
+            case LT -> left < right;
+            case LE -> left <= right;
+            case GT -> left > right;
+            default -> left >= right;
+        };
+    }
+
+    /** Boxed comparison of an already coerced cell against an already coerced value. */
+    static boolean matches(Object left, int op, Object right) {
+        // Numbers compare by value, so an Integer cell equals the literal 22.0
+        if (left instanceof Number l && right instanceof Number r) {
+            return test(op, l.doubleValue(), r.doubleValue());
+        }
+        if (left instanceof LocalDate date && right instanceof String s) {
+            LocalDate other = TypeInference.parseDate(s);
+            if (other != null) return test(op, date.compareTo(other));
+        }
+        if (op == EQ) return Objects.equals(left, right);
+        if (op == NE) return !Objects.equals(left, right);
+        return test(op, compareValues(left, right));
+    }
+
+    static Object coerce(Object v) {
+        if (v instanceof Number) return v;
+        if (v instanceof String s) {
+            Double parsed = TypeInference.parseDouble(s);
+            return parsed != null ? parsed : s; // keep as string
+        }
+        return v;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    static int compareValues(Object a, Object b) {
+        if (a instanceof Comparable && a.getClass().isInstance(b)) {
+            return ((Comparable)a).compareTo(b);
+        }
+        if (a instanceof Number && b instanceof Number) {
+            double diff = ((Number)a).doubleValue() - ((Number)b).doubleValue();
+            return (diff < 0) ? -1 : (diff > 0 ? 1 : 0);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+}
@@ -0,0 +1,119 @@
+package filtr.dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+
+/**
+ * Streaming CSV parser. Input is read in fixed-size character chunks and run
+ * through a small state machine, so only the current chunk and the current
+ * record are held in memory, never the whole file or its lines.
+ *
+ * Quoted fields may contain commas, newlines and doubled quotes ({@code ""}).
+ * A quote elsewhere in a field toggles quoting, as the old line parser did.
+ */
+public class CsvReader implements Closeable {
+    public static final int CHUNK_SIZE = 1 << 16;
+
+    private final Reader in;
+    private final char[] buffer = new char[CHUNK_SIZE];
+    private int position;
+    private int limit;
+    private final StringBuilder field = new StringBuilder();
+    private long line = 1;
+    private long recordLine;
+    private boolean sawQuotes;
+
+    public CsvReader(Reader in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the next record's raw (untrimmed) fields into {@code fields}.
+     * Returns false once the input is exhausted.
+     */
+    public boolean next(List<String> fields) throws IOException {
+        fields.clear();
+        field.setLength(0);
+        recordLine = line;
+        boolean inQuotes = false;
+        boolean quoteInQuotes = false; // saw '"' inside quotes: an escape or the closing quote
+        boolean consumed = false;
+
+        while (true) {
+            if (position == limit && !fill()) {
+                if (!consumed) return false;
+                fields.add(field.toString());
+                return true;
+            }
+            char c = buffer[position++];
+            consumed = true;
+
+            if (quoteInQuotes) {
+                quoteInQuotes = false;
+                if (c == '"') {
+                    field.append('"');
+                    continue;
+                }
+                inQuotes = false;
+            }
+
+            if (inQuotes) {
+                if (c == '"') {
+                    quoteInQuotes = true;
+                } else {
+                    if (c == '\n') line++;
+                    field.append(c);
+                }
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> {
+                    inQuotes = true;
+                    sawQuotes = true;
+                }
+                case ',' -> {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                }
+                case '\n' -> {
+                    line++;
+                    fields.add(field.toString());
+                    return true;
+                }
+                case '\r' -> { } // CRLF line endings
+                default -> field.append(c);
+            }
+        }
+    }
+
+    /** 1-based line on which the last record returned by {@link #next} started. */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    /** Whether any field read so far was quoted. */
+    public boolean sawQuotes() {
+        return sawQuotes;
+    }
+
+    /** Line breaks consumed so far, including those inside quoted fields. */
+    public long lineBreaks() {
+        return line - 1;
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -1,94 +1,300 @@
 package filtr.dataset;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.zip.GZIPOutputStream;
 
 public class Dataset {
-    private List<String> columns;
-    private List<Map<String, Object>> rows;
+    private static final int EXPORT_BUFFER = 1 << 16;
+    
+    private Schema schema;
+    private List<Column> vectors; // indexed by the schema's ordinals
+    private int rowCount;
+    private int[] selection; // rows of the vectors this dataset sees, or null for all of them
+    private final OffHeapArena arena; // null when every vector lives on the heap
+    private int bindings;              // variables referring to this dataset
+    private Runnable unbound;          // run once when the last of them lets go, or null
     
     public Dataset(List<String> columns, List<Map<String, Object>> rows) {
-        this.columns = new ArrayList<>(columns);
-        this.rows = rows;
+        this.schema = new Schema(columns);
+        this.vectors = new ArrayList<>(columns.size());
+        this.rowCount = rows.size();
+        this.arena = null;
+        for (String col : columns) {
+            ColumnBuilder vector = new ColumnBuilder(rows.size());
+            for (Map<String, Object> row : rows) {
+                vector.append(row.get(col));
+            }
+            vectors.add(vector.build());
+        }
+    }
+    
+    /** Builds a dataset directly from column vectors, one per name, all of equal length. */
+    public Dataset(List<String> columns, Column[] vectors) {
+        this(columns, vectors, null);
+    }
+    
+    /** As above, for vectors allocated from an off-heap arena that this dataset keeps alive. */
+    Dataset(List<String> columns, Column[] vectors, OffHeapArena arena) {
+        this.arena = arena;
+        if (columns.size() != vectors.length) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " column vectors but got " + vectors.length + ".");
+        }
+        this.schema = new Schema(columns);
+        this.vectors = new ArrayList<>(Arrays.asList(vectors));
+        this.rowCount = vectors.length == 0 ? 0 : vectors[0].size();
+        for (int i = 0; i < vectors.length; i++) {
+            if (vectors[i].size() != rowCount) {
+                throw new IllegalArgumentException("Column " + columns.get(i) + " has " + vectors[i].size() + " rows, expected " + rowCount + ".");
+            }
+        }
+    }
+    
+    /** A filtered view: shares the parent's vectors and sees only the selected rows (all of them when null). */
+    private Dataset(Schema schema, List<Column> vectors, int[] selection, OffHeapArena arena) {
+        this.schema = schema;
+        this.vectors = new ArrayList<>(vectors);
+        this.rowCount = selection != null ? selection.length : vectors.isEmpty() ? 0 : vectors.get(0).size();
+        this.selection = selection;
+        this.arena = arena;
     }
     
+    /**
+     * Another handle on the same rows and vectors. Neither side writes the
+     * shared vectors in place, so a fill or drop on one is never seen by the other.
+     */
+    Dataset share() {
+        for (Column vector : vectors) {
+            vector.markShared();
+        }
+        return new Dataset(schema.copy(), vectors, selection, arena);
+    }
+    
+    /**
+     * Adds a row at the end, one value per column in order, as a followed
+     * import grows. Rows already present never change, so views filtered
+     * from this dataset keep seeing exactly the rows they selected, and a
+     * vector shared with another handle is copied before it grows.
+     */
+    void appendRow(Object[] cells) {
+        materialize();
+        for (int j = 0; j < cells.length; j++) {
+            Column vector = vectors.get(j);
+            if (!vector.accepts(cells[j])) {
+                vector = vector.widen();
+                vectors.set(j, vector);
+            } else if (vector.isShared()) {
+                vector = vector.copy();
+                vectors.set(j, vector);
+            }
+            vector.append(cells[j]);
+            if (vector instanceof DictionaryColumn dict && dict.cardinality() > DictionaryColumn.MAX_CARDINALITY) {
+                vectors.set(j, dict.widen());
+            }
+        }
+        rowCount++;
+    }
+    
+    /** Approximate bytes held by this dataset's vectors. */
+    long estimatedBytes() {
+        long bytes = 0;
+        for (Column vector : vectors) {
+            bytes += vector.estimatedBytes();
+        }
+        return bytes;
+    }
+    
+    /** Column names in order (read-only). */
     public List<String> getColumns() {
-        return columns;
+        return schema.names();
     }
     
+    public boolean hasColumn(String name) {
+        return schema.contains(name);
+    }
+    
+    /**
+     * Row-oriented view over the column vectors, kept for callers that iterate
+     * rows. A row hands out every column, so one the loader skipped fails here
+     * rather than part way through the loop.
+     */
     public List<Map<String, Object>> getRows() {
-        return rows;
+        for (Column vector : vectors) {
+            if (vector instanceof SkippedColumn) throw SkippedColumn.notLoaded();
+        }
+        return new AbstractList<>() {
+            @Override
+            public Map<String, Object> get(int index) {
+                Objects.checkIndex(index, rowCount);
+                return new RowView(index);
+            }
+            
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        };
+    }
+    
+    /** Values of a single column, in row order. */
+    public List<Object> getColumnValues(String columnName) {
+        Column vector = column(columnName);
+        List<Object> values = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            values.add(vector.get(physical(i)));
+        }
+        return values;
     }
     
     public int size() {
-        return rows.size();
+        return rowCount;
     }
     
-    public void renameColumn(String oldName, String newName) {
-        
-        if (!columns.contains(oldName)) {
-            throw new IllegalArgumentException("Column " + oldName + " does not exist.");
-        }
-        if (columns.contains(newName)) {
-            throw new IllegalArgumentException("Column " + newName + " already exists.");
+    public boolean isOffHeap() {
+        return arena != null;
+    }
+    
+    /** Called when a variable starts referring to this dataset. */
+    public void retain() {
+        bindings++;
+        if (arena != null) arena.retain();
+    }
+    
+    /** Called when a variable stops referring to this dataset; frees off-heap storage once unused. */
+    public void release() {
+        if (arena != null) arena.release();
+        if (--bindings <= 0 && unbound != null) {
+            Runnable last = unbound;
+            unbound = null;
+            last.run();
         }
-        
-        // Update column list
-        int index = columns.indexOf(oldName);
-        columns.set(index, newName);
-        
-        // Update each row
-        for (Map<String, Object> row : rows) {
-            Object value = row.remove(oldName);
-            row.put(newName, value);
+    }
+    
+    /** As {@link #release()}, for a dataset returned out of the scope it was bound in: it stays open for the caller. */
+    public void handOff() {
+        bindings--;
+        if (arena != null) arena.handOff();
+    }
+    
+    /** Frees off-heap storage no variable took, for a dataset a function returned and the caller discarded. */
+    public void releaseUnbound() {
+        if (arena != null) arena.releaseUnused();
+    }
+    
+    /** Runs {@code action} once no variable refers to this dataset any more. */
+    void whenUnbound(Runnable action) {
+        unbound = action;
+    }
+    
+    private ColumnStorage storage() {
+        return arena != null ? arena : ColumnStorage.HEAP;
+    }
+    
+    private Column column(String name) {
+        return vectors.get(schema.require(name));
+    }
+    
+    /** Index into the vectors for a row of this dataset. */
+    private int physical(int row) {
+        return selection == null ? row : selection[row];
+    }
+    
+    /** A view of some of this dataset's rows, numbered as this dataset numbers them. */
+    Dataset view(int[] rows) {
+        int[] kept = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            kept[i] = physical(rows[i]);
         }
+        return new Dataset(schema.copy(), vectors, kept, arena);
+    }
+    
+    /**
+     * Turns a filtered view into a dataset that owns its rows, so it can be
+     * written without the parent seeing the change.
+     */
+    private void materialize() {
+        if (selection == null) return;
+        int[] rows = selection;
+        vectors.replaceAll(vector -> vector.select(rows));
+        selection = null;
+    }
+    
+    /** The named vector, ready to be written in place. */
+    private Column writableVector(String name, Object value) {
+        materialize();
+        int ordinal = schema.require(name);
+        Column vector = vectors.get(ordinal);
+        if (!vector.accepts(value)) {
+            vector = vector.widen();
+        } else if (vector.isShared()) {
+            vector = vector.copy();
+        }
+        vectors.set(ordinal, vector);
+        return vector;
+    }
+    
+    /** Vectors in column order, resolved once so row loops skip the name lookup. */
+    private Column[] orderedVectors() {
+        return vectors.toArray(new Column[0]);
+    }
+    
+    public void renameColumn(String oldName, String newName) {
+        // Only the name changes; the vector keeps its ordinal
+        schema.rename(oldName, newName);
     }
     
     public void viewDataset() {
-        if (rows.isEmpty()) {
+        if (rowCount == 0) {
             System.out.println("No data in dataset.");
             return;
         }
         
+        Column[] selected = orderedVectors();
+        
         // Determine the maximum width for each column
-        Map<String, Integer> columnWidths = new LinkedHashMap<>();
-        for (String col : columns) {
-            int maxWidth = col.length();
-            for (Map<String, Object> row : rows) {
-                Object value = row.get(col);
+        int[] columnWidths = new int[selected.length];
+        for (int c = 0; c < selected.length; c++) {
+            int maxWidth = schema.name(c).length();
+            for (int i = 0; i < rowCount; i++) {
+                Object value = selected[c].get(physical(i));
                 if (value != null) {
                     maxWidth = Math.max(maxWidth, value.toString().length());
                 } else {
                     maxWidth = Math.max(maxWidth, 4); // length of "NULL"
                 }
             }
-            columnWidths.put(col, maxWidth);
+            columnWidths[c] = maxWidth;
         }
         
         // Build header
         StringBuilder header = new StringBuilder("| ");
-        for (String col : columns) {
-            header.append(String.format("%-" + columnWidths.get(col) + "s | ", col));
+        for (int c = 0; c < selected.length; c++) {
+            header.append(String.format("%-" + columnWidths[c] + "s | ", schema.name(c)));
         }
         System.out.println(header);
         
         // Build separator
         StringBuilder separator = new StringBuilder("|");
-        for (String col : columns) {
-            int width = columnWidths.get(col);
+        for (int width : columnWidths) {
             separator.append("-".repeat(width + 2)).append('|');
         }
         System.out.println(separator);
         
         // Build rows
-        for (Map<String, Object> row : rows) {
+        for (int i = 0; i < rowCount; i++) {
             StringBuilder line = new StringBuilder("| ");
-            for (String col : columns) {
-                Object value = row.get(col);
+            for (int c = 0; c < selected.length; c++) {
+                Object value = selected[c].get(physical(i));
                 String text = (value == null) ? "NULL" : value.toString();
-                line.append(String.format("%-" + columnWidths.get(col) + "s | ", text));
+                line.append(String.format("%-" + columnWidths[c] + "s | ", text));
             }
             System.out.println(line);
         }
@@ -96,178 +302,244 @@ public class Dataset {
     
     
     public Dataset filterDataset(String columnName, String operator, Object value) {
-        if (!columns.contains(columnName)) {
-            throw new IllegalArgumentException("Column " + columnName + " does not exist.");
-        }
+        int ordinal = schema.require(columnName);
         
-        List<Map<String, Object>> filteredRows = new ArrayList<>();
+        // Typed vectors compare primitives here; only mixed columns go through boxed cells.
+        // A view only tests its own rows, so chained filters narrow the same selection.
+        int[] kept = vectors.get(ordinal).match(operator, value, selection).stream().toArray();
         
-        for (Map<String, Object> row : rows) {
-            Object cellValue = row.get(columnName);
-            if (cellValue == null) continue;
-            
-            // Normalize both to same type if possible
-            Object left = coerce(cellValue);
-            Object right = coerce(value);
-            
-            int cmp = compareValues(left, right);
-            
-            boolean keep = switch (operator) {
-                case "==" -> Objects.equals(left, right);
-                case "!=" -> !Objects.equals(left, right);
-                case "<"  -> cmp < 0;
-                case "<=" -> cmp <= 0;
-                case ">"  -> cmp > 0;
-                case ">=" -> cmp >= 0;
-                default -> throw new IllegalArgumentException("Unsupported operator: " + operator);
-            };
-            
-            if (keep) filteredRows.add(row);
+        // The result shares our vectors; whichever side writes first copies
+        for (Column vector : vectors) {
+            vector.markShared();
         }
-        
-        return new Dataset(new ArrayList<>(columns), filteredRows);
+        return new Dataset(schema.copy(), vectors, kept, arena);
     }
     
-    private Object coerce(Object v) {
-        if (v instanceof Number) return v;
-        if (v instanceof String s) {
-            try {
-                return Double.parseDouble(s);
-            } catch (NumberFormatException e) {
-                return s; // keep as string
-            }
+    /** Whole-number doubles coming from script literals are stored as integers. */
+    static Object normalizeValue(Object value) {
+        if (value instanceof Double d && d % 1 == 0) {
+            return (int) d.doubleValue();
         }
-        return v;
+        return value;
     }
     
-    // @SuppressWarnings({"rawtypes", "unchecked"})
-    private int compareValues(Object a, Object b) {
-        if (a instanceof Comparable && a.getClass().isInstance(b)) {
-            return ((Comparable)a).compareTo(b);
-        }
-        if (a instanceof Number && b instanceof Number) {
-            double diff = ((Number)a).doubleValue() - ((Number)b).doubleValue();
-            return (diff < 0) ? -1 : (diff > 0 ? 1 : 0);
-        }
-        return a.toString().compareTo(b.toString());
+    public void exportDataset(String path, String name, String format) throws java.io.IOException {
+        exportDataset(path, name, format, ExportOptions.defaults());
     }
     
-    public void exportDataset(String path, String name, String format) throws java.io.IOException {
+    public void exportDataset(String path, String name, String format, ExportOptions options) throws java.io.IOException {
         path = path.replaceAll("^\"|\"$", ""); // remove surrounding quotes
-        path = path + "/" + "filtr" + name + "." + format;
+        if (options.partitioned()) {
+            PartitionedExport.export(this, Paths.get(path, "filtr" + name), checkFormat(format), options);
+            return;
+        }
+        path = path + "/" + "filtr" + name + "." + format + (options.gzip ? ".gz" : "");
         System.out.println("Exporting dataset to: " + path);
-        format = format.trim().toLowerCase();
+        format = checkFormat(format);
         
+        writeFile(Paths.get(path), format, options);
+    }
+    
+    /**
+     * Writes the dataset to a stream the caller owns, such as standard output.
+     * The stream is flushed but left open.
+     */
+    public void exportDataset(OutputStream stream, String format, ExportOptions options) throws IOException {
+        format = checkFormat(format);
+        try (OutputStream out = openStream(stream, options)) {
+            write(out, format);
+        }
+    }
+    
+    /** The caller's stream, gzip-compressed when asked for; closing it only flushes the caller's stream. */
+    static OutputStream openStream(OutputStream stream, ExportOptions options) throws IOException {
+        if (options.partitioned()) {
+            throw new IllegalArgumentException("Partitioned and split exports write a directory of files, not a stream.");
+        }
+        OutputStream borrowed = new FilterOutputStream(stream) {
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                stream.write(bytes, offset, length);
+            }
+            
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        return options.gzip ? new GZIPOutputStream(borrowed, EXPORT_BUFFER) : borrowed;
+    }
+    
+    /** The format name in canonical form, rejected before any file is created. */
+    private static String checkFormat(String format) {
+        format = format.trim().toLowerCase();
+        return switch (format) {
+            case "csv", "json", "jsonl", "ndjson", "fltrb", "arrow" -> format;
+            default -> throw new IllegalArgumentException("Unsupported format: " + format + ". Use 'csv', 'json', 'jsonl', 'fltrb' or 'arrow'.");
+        };
+    }
+    
+    void write(OutputStream out, String format) throws IOException {
         switch (format) {
-            case "csv":
-            exportAsCSV(path);
-            break;
-            case "json":
-            exportAsJSON(path);
-            break;
-            default:
-            throw new IllegalArgumentException("Unsupported format: " + format + ". Use 'csv' or 'json'.");
+            case "csv" -> exportAsCSV(out);
+            case "json" -> exportAsJSON(out);
+            case "jsonl", "ndjson" -> exportAsJSONLines(out);
+            case "fltrb" -> exportAsFltrb(out);
+            default -> exportAsArrow(out);
         }
     }
     
-    private void exportAsCSV(String path) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(path))) {
+    private void exportAsCSV(OutputStream out) throws IOException {
+        Column[] selected = orderedVectors();
+        
+        try (TextWriter writer = new TextWriter(out)) {
             // Write header
-            writer.write(String.join(",", columns));
+            writer.writeString(String.join(",", schema.names()));
             writer.newLine();
             
             // Write rows
-            for (Map<String, Object> row : rows) {
-                List<String> values = new ArrayList<>();
-                for (String col : columns) {
-                    Object value = row.get(col);
-                    String str = (value != null ? value.toString() : "");
-                    
-                    // Handle commas and quotes in CSV fields
-                    if (str.contains(",") || str.contains("\"")) {
-                        str = "\"" + str.replace("\"", "\"\"") + "\"";
-                    }
-                    values.add(str);
+            for (int i = 0; i < rowCount; i++) {
+                int row = physical(i);
+                for (int j = 0; j < selected.length; j++) {
+                    if (j > 0) writer.write(',');
+                    RowFormat.csvCell(writer, selected[j], row);
                 }
-                writer.write(String.join(",", values));
                 writer.newLine();
             }
         }
     }
     
-    private void exportAsJSON(String path) throws IOException {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(path))) {
-            writer.write("[\n");
+    private void exportAsJSON(OutputStream out) throws IOException {
+        Column[] selected = orderedVectors();
+        byte[][] names = jsonNames();
+        
+        try (TextWriter writer = new TextWriter(out)) {
+            writer.writeString("[\n");
             
-            for (int i = 0; i < rows.size(); i++) {
-                Map<String, Object> row = rows.get(i);
-                writer.write("  {");
-                int j = 0;
-                for (String col : columns) {
-                    Object value = row.get(col);
-                    String strValue = (value != null ? value.toString() : "");
-                    strValue = strValue.replace("\"", "\\\""); // escape quotes
-                    
-                    writer.write("\"" + col + "\": \"" + strValue + "\"");
-                    if (j < columns.size() - 1) writer.write(", ");
-                    j++;
-                }
-                writer.write("}");
-                if (i < rows.size() - 1) writer.write(",");
+            for (int i = 0; i < rowCount; i++) {
+                writer.writeString("  ");
+                writeJSONObject(writer, names, selected, i);
+                if (i < rowCount - 1) writer.write(',');
                 writer.newLine();
             }
             
-            writer.write("]");
+            writer.write(']');
+        }
+    }
+    
+    /** JSON Lines: one object per line, written row by row. */
+    private void exportAsJSONLines(OutputStream out) throws IOException {
+        Column[] selected = orderedVectors();
+        byte[][] names = jsonNames();
+        
+        try (TextWriter writer = new TextWriter(out)) {
+            for (int i = 0; i < rowCount; i++) {
+                writeJSONObject(writer, names, selected, i);
+                writer.newLine();
+            }
+        }
+    }
+    
+    /** Binary columnar export: the vectors are written as they are, with no per-cell text. */
+    private void exportAsFltrb(OutputStream stream) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(stream, EXPORT_BUFFER)) {
+            FltrbFormat.write(out, schema.names(), selectedVectors(), rowCount);
+        }
+    }
+    
+    /** Arrow IPC file; typed vectors already match Arrow's layout and are copied out whole. */
+    private void exportAsArrow(OutputStream stream) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(stream, EXPORT_BUFFER)) {
+            ArrowFormat.write(out, schema.names(), selectedVectors(), rowCount);
+        }
+    }
+    
+    /** Vectors holding exactly this dataset's rows, gathering a view's selection first. */
+    Column[] selectedVectors() {
+        Column[] selected = orderedVectors();
+        if (selection != null) {
+            for (int c = 0; c < selected.length; c++) {
+                selected[c] = selected[c].select(selection);
+            }
+        }
+        return selected;
+    }
+    
+    /**
+     * Writes an export file. The rows go to a temp file beside the target,
+     * which is moved over it only once complete: the target may be the very
+     * file an imported .fltrb or .arrow still maps, and truncating that in
+     * place would pull the pages out from under its vectors.
+     */
+    void writeFile(Path target, String format, ExportOptions options) throws IOException {
+        Path temp = target.resolveSibling("." + target.getFileName() + ".tmp");
+        try {
+            try (OutputStream out = openStream(temp, options)) {
+                write(out, format);
+            }
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    /** An export file, gzip-compressed when asked for. */
+    private static OutputStream openStream(Path path, ExportOptions options) throws IOException {
+        OutputStream out = Files.newOutputStream(path);
+        if (options.gzip) out = new GZIPOutputStream(out, EXPORT_BUFFER);
+        return out;
+    }
+    
+    /** Member names, encoded once for every row. */
+    private byte[][] jsonNames() throws IOException {
+        byte[][] names = new byte[schema.size()][];
+        for (int j = 0; j < names.length; j++) {
+            names[j] = RowFormat.jsonName(schema.name(j));
+        }
+        return names;
+    }
+    
+    private void writeJSONObject(TextWriter writer, byte[][] names, Column[] selected, int row) throws IOException {
+        writer.write('{');
+        for (int j = 0; j < selected.length; j++) {
+            RowFormat.jsonMember(writer, names[j], selected[j], physical(row));
+            if (j < selected.length - 1) writer.writeString(", ");
         }
+        writer.write('}');
     }
     
     /** Potentially make this a list of values instead of one default value */
     public void addColumn(String columnName, Object defaultValue) {
-        if (columns.contains(columnName)) {
+        if (schema.contains(columnName)) {
             throw new IllegalArgumentException("Column " + columnName + " already exists.");
         }
-
+        
+        ColumnBuilder vector = new ColumnBuilder(rowCount, storage());
+        
         // if defaultValue is a list, we should first check to make sure the size matches
         if (defaultValue instanceof List<?> defaultList) {
-            if (defaultList.size() != rows.size()) {
+            if (defaultList.size() != rowCount) {
                 throw new IllegalArgumentException("Length of values list does not match number of rows in dataset.");
             }
-            columns.add(columnName);
-            for (int i = 0; i < rows.size(); i++) {
-                if (defaultList.get(i) == null) {
-                    rows.get(i).put(columnName, null);
-                    continue;
-                }
-                 // check if we have a number, and if we do typecast it to be an integer
-                if (defaultList.get(i) instanceof Double d) {
-                    if (d % 1 != 0) {
-                        rows.get(i).put(columnName, d); // keep as double if fractional part exists
-                    } else {
-                        rows.get(i).put(columnName, (int) d.doubleValue()); // convert to int if whole number
-                    }
-                } else {
-                    rows.get(i).put(columnName, defaultList.get(i));
-                }
+            for (Object item : defaultList) {
+                // check if we have a number, and if we do typecast it to be an integer
+                vector.append(normalizeValue(item));
             }
-            return;
-        }
-        
-        columns.add(columnName);
-        String nullString = "NULL";
-        for (Map<String, Object> row : rows) {
-            // check if we have a number, and if we do typecast it to be an integer
-            if (defaultValue == null || defaultValue.equals(nullString)) {
-                row.put(columnName, null);
-            } else if (defaultValue instanceof Double d) {
-                if (d % 1 != 0) {
-                    row.put(columnName, d); // keep as double if fractional part exists
-                } else {
-                    row.put(columnName, (int) d.doubleValue()); // convert to int if whole number
-                }
-            } else {
-                row.put(columnName, defaultValue);
+        } else {
+            String nullString = "NULL";
+            Object fill = (defaultValue == null || defaultValue.equals(nullString)) ? null : normalizeValue(defaultValue);
+            for (int i = 0; i < rowCount; i++) {
+                vector.append(fill);
             }
         }
+        
+        materialize();
+        schema.add(columnName);
+        vectors.add(vector.build());
     }
     
     public void addColumn(
@@ -276,40 +548,29 @@ public class Dataset {
         String operator,
         Object conditionValue
     ) {
-        if (columns.contains(newColumn)) {
+        if (schema.contains(newColumn)) {
             throw new IllegalArgumentException("Column " + newColumn + " already exists.");
         }
-        if (!columns.contains(baseColumn)) {
+        if (!schema.contains(baseColumn)) {
             throw new IllegalArgumentException("Base column " + baseColumn + " does not exist.");
         }
         
-        columns.add(newColumn);
+        materialize();
+        Column base = column(baseColumn);
+        BitSet matched = base.match(operator, conditionValue);
+        BooleanColumn vector = new BooleanColumn(rowCount);
         
-        for (Map<String, Object> row : rows) {
-            Object raw = row.get(baseColumn);
-            
+        for (int i = 0; i < rowCount; i++) {
             // NULL → newColumn = NULL
-            if (raw == null) {
-                row.put(newColumn, null);
-                continue;
+            if (base.isNull(i)) {
+                vector.append(null);
+            } else {
+                vector.appendBoolean(matched.get(i));
             }
-            
-            Object left = coerce(raw);
-            Object right = coerce(conditionValue);
-            int cmp = compareValues(left, right);
-            
-            boolean result = switch (operator) {
-                case ">"  -> cmp > 0;
-                case ">=" -> cmp >= 0;
-                case "<"  -> cmp < 0;
-                case "<=" -> cmp <= 0;
-                case "==" -> Objects.equals(left, right);
-                case "!=" -> !Objects.equals(left, right);
-                default   -> throw new IllegalArgumentException("Invalid operator: " + operator);
-            };
-            
-            row.put(newColumn, result);
         }
+        
+        schema.add(newColumn);
+        vectors.add(vector);
     }
     
     public void fillValues(
@@ -320,137 +581,86 @@ public class Dataset {
         Object expression,
         String keyword
     ) {
-        if (!columns.contains(columnName)) {
-            throw new IllegalArgumentException("Column " + columnName + " does not exist.");
-        }
+        int ordinal = schema.require(columnName);
+        
+        materialize();
+        Column target = vectors.get(ordinal);
         
         // Determine blank/NULL criteria — same for both paths
-        java.util.function.Predicate<Object> isMissingFn = (cell) -> {
-            if (keyword.equalsIgnoreCase("blanks")) {
-                return (cell instanceof String s && s.isBlank());
-            } else if (keyword.equalsIgnoreCase("NULL")) {
-                return (cell == null);
-            } else {
-                throw new IllegalArgumentException("Unsupported keyword: " + keyword);
-            }
-        };
+        BitSet missing;
+        if (keyword.equalsIgnoreCase("blanks")) {
+            missing = target.blanks();
+        } else if (keyword.equalsIgnoreCase("NULL")) {
+            missing = target.nulls();
+        } else {
+            throw new IllegalArgumentException("Unsupported keyword: " + keyword);
+        }
         
         boolean hasCondition =
         conditionColumn != null &&
         operator != null &&
         expression != null;
         
-        for (Map<String, Object> row : rows) {
-            
-            Object cellValue = row.get(columnName);
-            boolean isMissing = isMissingFn.test(cellValue);
-            
-            if (!isMissing) continue;  // Only fill missing entries
-            
-            boolean meetsCondition = true;
-            
-            if (hasCondition) {
-                if (!columns.contains(conditionColumn)) {
-                    throw new IllegalArgumentException("Condition column " + conditionColumn + " does not exist.");
-                }
-                
-                Object leftRaw = row.get(conditionColumn);
-                if (leftRaw == null) continue; // null never meets a comparison
-                
-                Object left = coerce(leftRaw);
-                Object right = coerce(expression);
-                
-                int cmp = compareValues(left, right);
-                
-                meetsCondition = switch (operator) {
-                    case "==" -> Objects.equals(left, right);
-                    case "!=" -> !Objects.equals(left, right);
-                    case "<"  -> cmp < 0;
-                    case "<=" -> cmp <= 0;
-                    case ">"  -> cmp > 0;
-                    case ">=" -> cmp >= 0;
-                    default -> throw new IllegalArgumentException("Unsupported operator: " + operator);
-                };
-            }
-            
-            if (meetsCondition) {
-                // Write final value with numeric cleanup
-                if (value == null || value.equals("NULL")) {
-                    row.put(columnName, null);
-                } else if (value instanceof Double d) {
-                    if (d % 1 != 0) {
-                        row.put(columnName, d);
-                    } else {
-                        row.put(columnName, (int) d.doubleValue());
-                    }
-                } else {
-                    row.put(columnName, value);
-                }
+        if (hasCondition) {
+            if (!schema.contains(conditionColumn)) {
+                throw new IllegalArgumentException("Condition column " + conditionColumn + " does not exist.");
             }
+            // null never meets a comparison
+            missing.and(column(conditionColumn).match(operator, expression));
         }
+        
+        // Nothing to write: leave the vector as it is rather than copy or widen it
+        if (missing.isEmpty()) return;
+        
+        // Write final value with numeric cleanup
+        Object fill = (value == null || value.equals("NULL")) ? null : normalizeValue(value);
+        writableVector(columnName, fill).fill(missing, fill);
     }
     
     
     public void dropColumn(List<String> columnNames) {
-        for (String colName : columnNames) {
-            if (!columns.contains(colName)) {
-                throw new IllegalArgumentException("Column " + colName + " does not exist.");
-            }
-        }
-        
-        // Remove from columns list
-        columns.removeAll(columnNames);
-        
-        // Remove from each row
-        for (Map<String, Object> row : rows) {
-            for (String colName : columnNames) {
-                row.remove(colName);
-            }
+        // Remove from the schema, then drop the vectors at the freed ordinals
+        int[] removed = schema.drop(columnNames);
+        for (int i = removed.length - 1; i >= 0; i--) {
+            vectors.remove(removed[i]);
         }
     }
 
 
     public void reviewDataset() {
     System.out.println("\nDataset Review:");
-    System.out.println("Number of columns: " + columns.size());
-    System.out.println("Number of rows: " + rows.size());
+    System.out.println("Number of columns: " + schema.size());
+    System.out.println("Number of rows: " + rowCount);
     
     System.out.println("\nNull counts per column:");
-    Map<String, Integer> nullCounts = new LinkedHashMap<>();
-    for (String col : columns) {
-        nullCounts.put(col, 0);
-    }
-    
-    for (Map<String, Object> row : rows) {
-        for (String col : columns) {
-            if (row.get(col) == null) {
-                nullCounts.put(col, nullCounts.get(col) + 1);
-            }
+    for (String col : schema.names()) {
+        Column vector = column(col);
+        int nulls = 0;
+        for (int i = 0; i < rowCount; i++) {
+            if (vector.isNull(physical(i))) nulls++;
         }
-    }
-    
-    for (String col : columns) {
-        System.out.println(" - " + col + ": " + nullCounts.get(col) + " nulls");
+        System.out.println(" - " + col + ": " + nulls + " nulls");
     }
 
     System.out.println("\nType inference and mismatches:");
 
     Random rand = new Random();
 
-    for (String col : columns) {
-        int sampleSize = Math.min(10, rows.size());
+    for (String col : schema.names()) {
+        Column vector = column(col);
+        int sampleSize = Math.min(10, rowCount);
         Set<Integer> sampleIndices = new HashSet<>();
 
         // Randomly pick sampleSize unique rows
         while (sampleIndices.size() < sampleSize) {
-            sampleIndices.add(rand.nextInt(rows.size()));
+            sampleIndices.add(rand.nextInt(rowCount));
         }
 
         // Infer type using sample
         Map<Class<?>, Integer> typeFrequency = new HashMap<>();
 
         for (int idx : sampleIndices) {
-            Object value = rows.get(idx).get(col);
+            Object value = vector.get(physical(idx));
             if (value != null) {
                 Class<?> type = value.getClass();
                 typeFrequency.put(type, typeFrequency.getOrDefault(type, 0) + 1);
@@ -476,8 +686,8 @@ public class Dataset {
         // Now check all rows for mismatches
         List<Integer> mismatchedRows = new ArrayList<>();
 
-        for (int i = 0; i < rows.size(); i++) {
-            Object value = rows.get(i).get(col);
+        for (int i = 0; i < rowCount; i++) {
+            Object value = vector.get(physical(i));
             if (value == null) continue;
 
             if (!inferredType.isInstance(value)) {
@@ -499,6 +709,62 @@ public class Dataset {
     
     @Override
     public String toString() {
-        return "Dataset(" + columns + ", " + rows.size() + " rows)";
+        return "Dataset(" + schema + ", " + rowCount + " rows)";
+    }
+    
+    /** A single row, read straight out of the column vectors. */
+    private class RowView extends AbstractMap<String, Object> {
+        private final int row;
+        
+        RowView(int row) {
+            this.row = row;
+        }
+        
+        @Override
+        public Object get(Object key) {
+            int ordinal = key instanceof String name ? schema.ordinal(name) : -1;
+            return ordinal < 0 ? null : vectors.get(ordinal).get(physical(row));
+        }
+        
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String name && schema.contains(name);
+        }
+        
+        @Override
+        public Object put(String key, Object value) {
+            Object previous = column(key).get(physical(row));
+            writableVector(key, value).set(row, value);
+            return previous;
+        }
+        
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int ordinal = 0;
+                        
+                        @Override
+                        public boolean hasNext() {
+                            return ordinal < schema.size();
+                        }
+                        
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+                            Object value = vectors.get(ordinal).get(physical(row));
+                            return new AbstractMap.SimpleImmutableEntry<>(schema.name(ordinal++), value);
+                        }
+                    };
+                }
+                
+                @Override
+                public int size() {
+                    return schema.size();
+                }
+            };
+        }
     }
 }
@@ -0,0 +1,102 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Datasets already parsed in this process, so importing the same unchanged
+ * file again (from the REPL, or a function called in a loop) skips the load.
+ *
+ * Entries are keyed by the file's canonical path, size and modification time,
+ * so an edited file simply misses and its old entries are dropped. Every hit
+ * hands out a fresh copy-on-write handle, so writes through one import never
+ * reach another. The least recently used entries are evicted once the
+ * estimated size of everything cached passes a quarter of the maximum heap.
+ */
+final class DatasetCache {
+
+    /** What a load depends on: the file as it is now, plus the options that change the result. */
+    private record Key(Path path, long size, long modified, Set<String> columns, RowFilter where) {
+    }
+
+    private record Entry(Dataset dataset, long bytes) {
+    }
+
+    private static final long CAPACITY = Runtime.getRuntime().maxMemory() / 4;
+
+    private static final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true); // access order
+    private static long bytes;
+
+    private DatasetCache() {
+    }
+
+    /** Parses the file; called on a miss. */
+    interface Loader {
+        Dataset load() throws IOException;
+    }
+
+    /**
+     * The dataset this import would load, from the cache when the file is
+     * unchanged. Off-heap imports are never cached, because their storage is
+     * freed as soon as no variable refers to it.
+     */
+    static Dataset load(String path, LoadOptions options, Loader loader) throws IOException {
+        if (options.offHeap) return loader.load();
+
+        Key key = key(path, options);
+        synchronized (DatasetCache.class) {
+            Entry hit = entries.get(key);
+            if (hit != null) {
+                System.out.println("Using cached dataset for: " + path);
+                return hit.dataset.share();
+            }
+        }
+
+        Dataset dataset = loader.load();
+        long size = dataset.estimatedBytes();
+        if (size > CAPACITY) return dataset;
+
+        synchronized (DatasetCache.class) {
+            forget(key);
+            if (entries.put(key, new Entry(dataset, size)) == null) bytes += size;
+            evict();
+            return dataset.share();
+        }
+    }
+
+    private static Key key(String path, LoadOptions options) throws IOException {
+        Path file = Paths.get(path).toRealPath();
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        Set<String> columns = options.columns == null ? null : new HashSet<>(options.columns);
+        return new Key(file, attributes.size(), attributes.lastModifiedTime().toMillis(), columns, options.where);
+    }
+
+    /** Drops entries for earlier versions of the file this key describes. */
+    private static void forget(Key current) {
+        Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Key, Entry> entry = it.next();
+            Key key = entry.getKey();
+            if (key.path.equals(current.path) && (key.size != current.size || key.modified != current.modified)) {
+                bytes -= entry.getValue().bytes;
+                it.remove();
+            }
+        }
+    }
+
+    private static void evict() {
+        Iterator<Entry> it = entries.values().iterator();
+        while (bytes > CAPACITY && it.hasNext()) {
+            bytes -= it.next().bytes;
+            it.remove();
+        }
+    }
+}
@@ -1,82 +1,273 @@
 package filtr.dataset;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 import org.json.*;
 
 public class DatasetLoader {
+
+    /** Starting vector capacity when the row count is not known up front. */
+    static final int INITIAL_CAPACITY = 1024;
+    private static final int GZIP_BUFFER = 1 << 16;
+    private static final int STDIN_BUFFER = 1 << 16;
     
     public static Dataset load(String path) throws IOException {
-        if (path.endsWith(".csv")) {
+        return load(path, LoadOptions.defaults());
+    }
+    
+    public static Dataset load(String path, LoadOptions options) throws IOException {
+        if (options.follow) {
+            if (GlobLoader.isGlob(path) || !path.endsWith(".csv")) throw new IOException("Only a single CSV file can be followed: " + path);
+            if (options.offHeap || options.parallel || options.mapped) {
+                throw new IOException("A followed import is read on the heap, one record at a time; it can't also be offheap, parallel or mapped.");
+            }
+            return FollowLoader.load(path);
+        }
+        if (GlobLoader.isGlob(path)) return GlobLoader.load(path, options);
+        return DatasetCache.load(path, options, () -> read(path, options));
+    }
+    
+    /** Parses the file, bypassing the cache. */
+    private static Dataset read(String path, LoadOptions options) throws IOException {
+        // A .gz file is read through a decompressor; the name underneath picks the format
+        boolean gzip = path.endsWith(".gz");
+        String name = gzip ? path.substring(0, path.length() - ".gz".length()) : path;
+        
+        if (name.endsWith(".csv")) {
             System.out.println("Loading CSV dataset from: " + path);
-            return loadCSV(path);
-        } else if (path.endsWith(".json")) {
+            return loadCSV(path, options);
+        } else if (name.endsWith(".json")) {
             System.out.println("Loading JSON dataset from: " + path);
-            return loadJSON(path);
+            return gzip ? readJSON(gunzip(path), options) : loadJSON(path, options);
+        } else if (name.endsWith(".jsonl") || name.endsWith(".ndjson")) {
+            System.out.println("Loading JSON Lines dataset from: " + path);
+            return gzip ? JsonLinesLoader.read(gunzip(path), options) : JsonLinesLoader.load(Paths.get(path), options);
+        } else if (name.endsWith(".fltrb")) {
+            System.out.println("Loading filtR binary dataset from: " + path);
+            return FltrbFormat.read(Paths.get(path), options);
+        } else if (name.endsWith(".arrow")) {
+            System.out.println("Loading Arrow dataset from: " + path);
+            return ArrowFormat.read(Paths.get(path), options);
         } else {
-            throw new IOException("Only CSV and JSON files are supported: " + path);
+            throw new IOException("Only CSV, JSON, JSON Lines, fltrb and Arrow files are supported: " + path);
+        }
+    }
+    
+    /**
+     * A dataset read from standard input: JSON Lines when the first character
+     * that isn't whitespace is '{', CSV otherwise. Never cached, as the stream
+     * can only be read once.
+     */
+    public static Dataset loadStdin(LoadOptions options) throws IOException {
+        if (options.follow) throw new IOException("Standard input can't be followed.");
+        InputStream in = stdin();
+        Reader text = new InputStreamReader(in, StandardCharsets.UTF_8);
+        if (startsWithObject(in)) {
+            System.out.println("Loading JSON Lines dataset from standard input");
+            return JsonLinesLoader.read(text, options);
         }
+        System.out.println("Loading CSV dataset from standard input");
+        return readCSV(text, options, SchemaSidecar.none());
+    }
+    
+    private static BufferedInputStream stdin;
+    
+    /** Standard input, buffered once so it can be peeked at and then read by whichever reader needs it. */
+    public static synchronized InputStream stdin() {
+        if (stdin == null) stdin = new BufferedInputStream(System.in, STDIN_BUFFER);
+        return stdin;
+    }
+    
+    /** Whether the stream's first non-whitespace byte is '{', leaving the stream where it was. */
+    public static boolean startsWithObject(InputStream in) throws IOException {
+        in.mark(STDIN_BUFFER);
+        try {
+            int b;
+            do {
+                b = in.read();
+            } while (b == ' ' || b == '\t' || b == '\r' || b == '\n');
+            return b == '{';
+        } finally {
+            in.reset();
+        }
+    }
+    
+    /** UTF-8 text of a file. */
+    private static Reader open(String path) throws IOException {
+        return new InputStreamReader(Files.newInputStream(Paths.get(path)), StandardCharsets.UTF_8);
+    }
+    
+    /** UTF-8 text of a gzip file, decompressed on a background thread while the caller parses. */
+    private static Reader gunzip(String path) throws IOException {
+        InputStream compressed = new GZIPInputStream(Files.newInputStream(Paths.get(path)), GZIP_BUFFER);
+        return new InputStreamReader(new BackgroundInputStream(compressed, "filtr-gunzip"), StandardCharsets.UTF_8);
     }
     
     public static Dataset loadCSV(String path) throws IOException {
-    List<String> lines = Files.readAllLines(Paths.get(path));
-    if (lines.isEmpty()) throw new IOException("Empty CSV file.");
-
-    // Read header row
-    String[] headers = lines.get(0).split(",");
-    List<String> columns = new ArrayList<>();
-    columns.add("filtrID");                  // Built-in column
-    columns.addAll(Arrays.asList(headers));  // Original columns
-
-    List<Map<String, Object>> rows = new ArrayList<>();
-
-    for (int i = 1; i < lines.size(); i++) {
-        String line = lines.get(i).trim();
-        if (line.isEmpty()) continue;
-
-        // --- QUOTED FIELD PARSER ---
-        List<String> valuesList = new ArrayList<>();
-        StringBuilder current = new StringBuilder();
-        boolean inQuotes = false;
-
-        for (char c : line.toCharArray()) {
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                valuesList.add(cleanCell(current.toString()));
-                current.setLength(0);
-            } else {
-                current.append(c);
+        return loadCSV(path, LoadOptions.defaults());
+    }
+    
+    public static Dataset loadCSV(String path, LoadOptions options) throws IOException {
+    // What earlier loads of this exact file learned, and what this one adds
+    SchemaSidecar schema = SchemaSidecar.open(Paths.get(path));
+    Dataset dataset;
+    if (path.endsWith(".gz")) dataset = readCSV(gunzip(path), options, schema);
+    else if (options.parallel) dataset = ParallelCsvLoader.load(Paths.get(path), options, schema);
+    else if (options.mapped) dataset = loadMappedCSV(path, options, schema);
+    else dataset = readCSV(open(path), options, schema);
+    // A pushed-down filter leaves a subset whose row count and types aren't the file's
+    if (options.where == null) schema.save();
+    return dataset;
+}
+
+/** CSV from any character stream, a record at a time. */
+private static Dataset readCSV(Reader text, LoadOptions options, SchemaSidecar schema) throws IOException {
+    try (CsvReader reader = new CsvReader(text)) {
+        List<String> fields = new ArrayList<>();
+        if (!reader.next(fields)) throw new IOException("Empty CSV file.");
+
+        // Read header row
+        List<String> columns = new ArrayList<>();
+        columns.add("filtrID");                  // Built-in column
+        for (String header : fields) {
+            columns.add(header.trim());          // Original columns
+        }
+        int width = fields.size();
+        schema.bind(columns);
+
+        // One vector per column, sized for the whole file when a sidecar knows it
+        ColumnStorage storage = options.storage();
+        int capacity = schema.capacity(INITIAL_CAPACITY);
+        IntColumn ids = new IntColumn(capacity, storage);
+        ColumnBuilder[] builders = new ColumnBuilder[width];
+        TypeInference[] inference = new TypeInference[width];
+        for (int j = 0; j < builders.length; j++) {
+            if (!options.loads(columns.get(j + 1))) continue; // never read: no builder, no inference
+            builders[j] = new ColumnBuilder(capacity, storage);
+            inference[j] = schema.inference(j);
+        }
+
+        // A pushed-down filter is tested first, so rejected rows are never stored
+        RowFilter where = options.where;
+        int key = where == null ? -1 : where.position(columns);
+
+        int record = 0;
+        while (reader.next(fields)) {
+            record++;
+            if (fields.size() == 1 && fields.get(0).isBlank()) continue;
+
+            if (fields.size() != width) {
+                System.err.println("Skipping malformed line " + reader.recordLine() + ": " + String.join(",", fields).trim());
+                continue;
+            }
+
+            Object keyCell = null;
+            if (key >= 0) {
+                keyCell = inference[key].inferNext(cleanCell(fields.get(key)));
+                if (!where.accepts(keyCell)) continue;
+            }
+
+            // ---- Built-in filtrID ----
+            ids.appendInt(record);  // record number (starting at 1 for first data row)
+
+            // ---- Original columns ----
+            for (int j = 0; j < width; j++) {
+                if (j == key) builders[j].append(keyCell);
+                else if (builders[j] != null) builders[j].append(inference[j].inferNext(cleanCell(fields.get(j))));
             }
         }
-        valuesList.add(cleanCell(current.toString()));
 
-        String[] values = valuesList.toArray(new String[0]);
-        if (values.length != headers.length) {
-            System.err.println("Skipping malformed line " + (i + 1) + ": " + line);
-            continue;
+        Column[] vectors = buildVectors(ids, builders);
+        schema.sawQuotes(reader.sawQuotes());
+        schema.learn(columns, vectors);
+        return newDataset(columns, vectors, storage);
+    }
+}
+
+
+/** As loadCSV, but tokenizing the memory-mapped file in place. */
+private static Dataset loadMappedCSV(String path, LoadOptions options, SchemaSidecar schema) throws IOException {
+    try (FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ)) {
+        MappedCsvReader reader = new MappedCsvReader(channel, 0, channel.size());
+        if (!reader.next()) throw new IOException("Empty CSV file.");
+
+        List<String> columns = new ArrayList<>();
+        columns.add("filtrID");
+        for (int j = 0; j < reader.fieldCount(); j++) {
+            columns.add(reader.field(j).trim());
+        }
+        int width = reader.fieldCount();
+        schema.bind(columns);
+
+        // Cells are typed from their bytes here, so the sidecar only sizes the vectors
+        ColumnStorage storage = options.storage();
+        int capacity = schema.capacity(INITIAL_CAPACITY);
+        IntColumn ids = new IntColumn(capacity, storage);
+        ColumnBuilder[] builders = new ColumnBuilder[width];
+        for (int j = 0; j < builders.length; j++) {
+            if (options.loads(columns.get(j + 1))) builders[j] = new ColumnBuilder(capacity, storage);
         }
 
-        Map<String, Object> row = new LinkedHashMap<>();
+        RowFilter where = options.where;
+        int key = where == null ? -1 : where.position(columns);
 
-        // ---- Built-in filtrID ----
-        row.put("filtrID", i);  // row number (starting at 1 for first data row)
+        int record = 0;
+        while (reader.next()) {
+            record++;
+            if (reader.blank()) continue;
 
-        // ---- Original columns ----
-        for (int j = 0; j < headers.length; j++) {
-            row.put(headers[j].trim(), inferType(values[j]));
+            if (reader.fieldCount() != width) {
+                System.err.println("Skipping malformed line " + reader.recordLine() + ": " + reader.text());
+                continue;
+            }
+            if (key >= 0 && !where.accepts(reader.value(key))) continue;
+
+            ids.appendInt(record);
+            for (int j = 0; j < width; j++) {
+                if (builders[j] != null) reader.appendTo(j, builders[j]);
+            }
         }
 
-        rows.add(row);
+        Column[] vectors = buildVectors(ids, builders);
+        schema.sawQuotes(reader.sawQuotes());
+        schema.learn(columns, vectors);
+        return newDataset(columns, vectors, storage);
     }
+}
 
-    return new Dataset(columns, rows);
+/** filtrID first, then one finished vector per original column. */
+static Column[] buildVectors(IntColumn ids, ColumnBuilder[] builders) {
+    Column[] vectors = new Column[builders.length + 1];
+    vectors[0] = ids;
+    for (int j = 0; j < builders.length; j++) {
+        // A column left out of the projection has no builder
+        vectors[j + 1] = builders[j] == null ? new SkippedColumn(ids.size()) : builders[j].build();
+    }
+    return vectors;
 }
 
+/**
+ * Wraps loaded vectors. A filtrID field in the file itself (say, a re-imported
+ * export) is dropped in favour of the freshly numbered built-in column.
+ */
+static Dataset newDataset(List<String> columns, Column[] vectors, ColumnStorage storage) {
+    int own = columns.subList(1, columns.size()).indexOf("filtrID") + 1;
+    if (own > 0) {
+        columns = new ArrayList<>(columns);
+        columns.remove(own);
+        List<Column> kept = new ArrayList<>(Arrays.asList(vectors));
+        kept.remove(own);
+        vectors = kept.toArray(new Column[0]);
+    }
+    return new Dataset(columns, vectors, storage instanceof OffHeapArena arena ? arena : null);
+}
 
 /** Normalize and handle NULL/blank convention. */
-private static String cleanCell(String cell) {
+static String cleanCell(String cell) {
     cell = cell.trim();
     if (cell.equalsIgnoreCase("NULL") || cell.isEmpty()) {
         return null;
@@ -84,135 +275,81 @@ private static String cleanCell(String cell) {
     return cell;
 }
 
-/**
- * Attempts to convert a cell into a real datatype.
- * Order matters: most specific → least specific.
- */
-private static Object inferType(String raw) {
-    if (raw == null) return null;
-
-    // Try Integer
-    try {
-        return Integer.parseInt(raw);
-    } catch (NumberFormatException ignore) {}
-
-    // Try Double
-    try {
-        return Double.parseDouble(raw);
-    } catch (NumberFormatException ignore) {}
-
-    // Try Boolean
-    if (raw.equalsIgnoreCase("true")) return true;
-    if (raw.equalsIgnoreCase("false")) return false;
-
-    // Try LocalDate (ISO-8601)
-    try {
-        return java.time.LocalDate.parse(raw);
-    } catch (Exception ignore) {}
-
-    // Fallback to String
-    return raw;
-}
 
     
     public static Dataset loadJSON(String path) throws IOException {
-    String content = new String(Files.readAllBytes(Paths.get(path)));
-    JSONArray jsonArray = new JSONArray(content);
-
-    if (jsonArray.isEmpty()) throw new IOException("Empty JSON array.");
-
-    // Extract original column names from first JSON object
-    JSONObject first = jsonArray.getJSONObject(0);
-
-    List<String> columns = new ArrayList<>();
-    columns.add("filtrID");                    // Built-in ID column
-    columns.addAll(first.keySet());            // Existing fields
-
-    List<Map<String, Object>> rows = new ArrayList<>();
-
-    for (int i = 0; i < jsonArray.length(); i++) {
-        JSONObject obj = jsonArray.getJSONObject(i);
-        Map<String, Object> row = new LinkedHashMap<>();
-
-        // ---- Built-in filtrID ----
-        row.put("filtrID", i + 1);
+        return loadJSON(path, LoadOptions.defaults());
+    }
+    
+    public static Dataset loadJSON(String path, LoadOptions options) throws IOException {
+    return readJSON(open(path), options);
+}
 
-        // ---- Original fields ----
-        for (String key : first.keySet()) {
-            Object raw = obj.opt(key);
-            row.put(key, normalizeJSONValue(raw));
+/** A JSON array of objects from any character stream, an object at a time. */
+private static Dataset readJSON(Reader text, LoadOptions options) throws IOException {
+    try (JsonReader reader = new JsonReader(text)) {
+        ColumnStorage storage = options.storage();
+        IntColumn ids = new IntColumn(INITIAL_CAPACITY, storage);
+        JsonColumns fields = new JsonColumns(INITIAL_CAPACITY, storage, options.columns);
+
+        // Objects are read one at a time, straight into the columns
+        int record = 0;
+        reader.beginArray();
+        while (reader.nextInArray()) {
+            record++;
+            if (fields.addIf(reader.readObject(), options.where)) {
+                ids.appendInt(record);      // ---- Built-in filtrID ----
+            }
         }
+        reader.endDocument();
 
-        rows.add(row);
+        if (record == 0) throw new IOException("Empty JSON array.");
+        List<String> columns = new ArrayList<>();
+        columns.add("filtrID");                    // Built-in ID column
+        columns.addAll(fields.keys());             // Every key seen
+        return newDataset(columns, buildVectors(ids, fields.builders()), storage);
     }
-
-    return new Dataset(columns, rows);
 }
 
 
 /**
  * Normalize JSON values into real Java types:
  *
- * - JSONObject.NULL  -> null
+ * - null             -> null
  * - Integer numbers  -> Integer
+ * - Long numbers     -> Long
  * - Double numbers   -> Double
  * - Boolean          -> Boolean
  * - Strings          -> String, Integer, Double, Boolean, LocalDate if detected
+ * - Objects, arrays  -> JSONObject, JSONArray
  */
-private static Object normalizeJSONValue(Object raw) {
-    if (raw == null || raw == JSONObject.NULL) {
+static Object normalizeJSONValue(Object raw) {
+    if (raw == null) {
         return null;
     }
 
-    // JSON returns numbers as either Integer or Double depending on content
+    // JSON returns numbers as Integer, Long or Double depending on content
     if (raw instanceof Integer) return raw;
-    if (raw instanceof Long) return ((Long) raw).intValue(); // normalize to Integer
-    if (raw instanceof Double) {
-        Double d = (Double) raw;
-        
-        // Convert whole-number doubles to Integers (e.g., 21.0 → 21)
-        if (d % 1 == 0) return d.intValue();
-        return d;
-    }
+    if (raw instanceof Long) return raw;  // only integers past the Integer range
+    // Written with a fraction or exponent (21.0, 1e3), as a CSV cell would infer
+    if (raw instanceof Double) return raw;
 
     if (raw instanceof Boolean) return raw;
 
     // Strings might actually represent other datatypes
     if (raw instanceof String) {
         String s = ((String) raw).trim();
-        return inferTypeFromString(s);
+        if (s.equalsIgnoreCase("NULL") || s.isEmpty()) return null;
+        return TypeInference.infer(s);
     }
 
+    // Nested values keep their JSON form
+    if (raw instanceof Map<?, ?> object) return new JSONObject(object);
+    if (raw instanceof List<?> array) return new JSONArray(array);
+
     // Fallback: leave as-is
     return raw;
 }
 
-private static Object inferTypeFromString(String raw) {
-    if (raw.equalsIgnoreCase("NULL") || raw.isEmpty()) {
-        return null;
-    }
-
-    // Try Integer
-    try {
-        return Integer.parseInt(raw);
-    } catch (NumberFormatException ignore) {}
-
-    // Try Double
-    try {
-        return Double.parseDouble(raw);
-    } catch (NumberFormatException ignore) {}
-
-    // Try Boolean
-    if (raw.equalsIgnoreCase("true")) return true;
-    if (raw.equalsIgnoreCase("false")) return false;
-
-    // Try LocalDate (ISO-8601)
-    try {
-        return java.time.LocalDate.parse(raw);
-    } catch (Exception ignore) {}
-
-    // Fallback
-    return raw;
-}
 
 }
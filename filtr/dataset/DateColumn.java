@@ -0,0 +1,105 @@
+package filtr.dataset;
+
+import java.nio.IntBuffer;
+import java.time.LocalDate;
+import java.util.BitSet;
+
+/** Column of ISO dates stored as epoch days. */
+public class DateColumn extends PrimitiveColumn {
+    private IntBuffer days;
+
+    public DateColumn(int capacity) {
+        this(capacity, ColumnStorage.HEAP);
+    }
+
+    public DateColumn(int capacity, ColumnStorage storage) {
+        super(capacity, storage);
+        this.days = storage.ints(capacity);
+    }
+
+    DateColumn(ColumnStorage storage, IntBuffer days, Bitmap validity, int size) {
+        super(storage, validity, size);
+        this.days = days;
+    }
+
+    public int getEpochDay(int row) {
+        return days.get(row);
+    }
+
+    /** The backing buffer; only the first {@link #size()} values are meaningful. */
+    IntBuffer buffer() {
+        return days;
+    }
+
+    @Override
+    public Object get(int row) {
+        return isNull(row) ? null : LocalDate.ofEpochDay(days.get(row));
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return value == null || value instanceof LocalDate;
+    }
+
+    @Override
+    public void set(int row, Object value) {
+        if (value == null) {
+            validity.clear(row);
+            return;
+        }
+        days.put(row, (int) ((LocalDate) value).toEpochDay());
+        validity.set(row);
+    }
+
+    @Override
+    public void append(Object value) {
+        int row = nextRow(value != null);
+        if (value != null) days.put(row, (int) ((LocalDate) value).toEpochDay());
+    }
+
+    public void appendEpochDay(int epochDay) {
+        int row = nextRow(true);
+        days.put(row, epochDay);
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity > days.capacity()) days = enlarge(days, grow(days.capacity(), capacity), size);
+    }
+
+    @Override
+    protected long valueBytes() {
+        return (long) days.capacity() * Integer.BYTES;
+    }
+
+    @Override
+    public Column copy() {
+        return new DateColumn(storage, resize(days, size, size), validity.copy(), size);
+    }
+
+    @Override
+    public Column select(int[] rows) {
+        IntBuffer selected = storage.ints(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            selected.put(i, days.get(rows[i]));
+        }
+        return new DateColumn(storage, selected, validity.select(rows), rows.length);
+    }
+
+    @Override
+    public BitSet match(String operator, Object value, int[] rows) {
+        LocalDate date = value instanceof LocalDate d ? d
+                : value instanceof String s ? TypeInference.parseDate(s) : null;
+        if (date == null) return super.match(operator, value, rows);
+
+        int op = Comparisons.opcode(operator);
+        int right = (int) date.toEpochDay();
+        BitSet result = new BitSet(size);
+        int count = rows == null ? size : rows.length;
+        for (int k = 0; k < count; k++) {
+            int i = rows == null ? k : rows[k];
+            if (validity.get(i) && Comparisons.test(op, Integer.compare(days.get(i), right))) result.set(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,172 @@
+package filtr.dataset;
+
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * String column stored as integer codes into a dictionary of distinct values.
+ * Predicates are evaluated once per distinct value, then applied by code.
+ */
+public class DictionaryColumn extends PrimitiveColumn {
+    /** Above this many distinct values a plain column is cheaper than the hash index. */
+    static final int MAX_CARDINALITY = 1 << 16;
+
+    private final List<String> dictionary;
+    private final Map<String, Integer> index;
+    private IntBuffer codes;
+
+    public DictionaryColumn(int capacity) {
+        this(capacity, ColumnStorage.HEAP);
+    }
+
+    public DictionaryColumn(int capacity, ColumnStorage storage) {
+        super(capacity, storage);
+        this.dictionary = new ArrayList<>();
+        this.index = new HashMap<>();
+        this.codes = storage.ints(capacity);
+    }
+
+    DictionaryColumn(ColumnStorage storage, List<String> dictionary, IntBuffer codes, Bitmap validity, int size) {
+        super(storage, validity, size);
+        this.dictionary = new ArrayList<>(dictionary);
+        this.index = new HashMap<>();
+        for (int code = 0; code < dictionary.size(); code++) {
+            index.put(dictionary.get(code), code);
+        }
+        this.codes = codes;
+    }
+
+    public int cardinality() {
+        return dictionary.size();
+    }
+
+    public int getCode(int row) {
+        return codes.get(row);
+    }
+
+    public String decode(int code) {
+        return dictionary.get(code);
+    }
+
+    /** The codes buffer; only the first {@link #size()} codes are meaningful. */
+    IntBuffer codes() {
+        return codes;
+    }
+
+    /** Code for this value, adding it to the dictionary if it is new. */
+    public int encode(String value) {
+        Integer code = index.get(value);
+        if (code == null) {
+            code = dictionary.size();
+            dictionary.add(value);
+            index.put(value, code);
+        }
+        return code;
+    }
+
+    /** Encoding only pays off while values repeat; a mostly-unique column is left plain. */
+    boolean worthEncoding() {
+        return dictionary.size() <= MAX_CARDINALITY && dictionary.size() * 2 <= size;
+    }
+
+    @Override
+    public Object get(int row) {
+        return isNull(row) ? null : dictionary.get(codes.get(row));
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return value == null || value instanceof String;
+    }
+
+    @Override
+    public void set(int row, Object value) {
+        if (value == null) {
+            validity.clear(row);
+            return;
+        }
+        codes.put(row, encode((String) value));
+        validity.set(row);
+    }
+
+    @Override
+    public void append(Object value) {
+        int row = nextRow(value != null);
+        if (value != null) codes.put(row, encode((String) value));
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity > codes.capacity()) codes = enlarge(codes, grow(codes.capacity(), capacity), size);
+    }
+
+    @Override
+    protected long valueBytes() {
+        long bytes = (long) codes.capacity() * Integer.BYTES;
+        for (String entry : dictionary) {
+            bytes += STRING_OVERHEAD + 2L * entry.length();
+        }
+        return bytes;
+    }
+
+    @Override
+    public Column copy() {
+        return new DictionaryColumn(storage, dictionary, resize(codes, size, size), validity.copy(), size);
+    }
+
+    @Override
+    public Column select(int[] rows) {
+        IntBuffer selected = storage.ints(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            selected.put(i, codes.get(rows[i]));
+        }
+        return new DictionaryColumn(storage, dictionary, selected, validity.select(rows), rows.length);
+    }
+
+    @Override
+    public BitSet match(String operator, Object value, int[] rows) {
+        int op = Comparisons.opcode(operator);
+        Object right = Comparisons.coerce(value);
+        boolean[] matchingCodes = new boolean[dictionary.size()];
+        for (int code = 0; code < matchingCodes.length; code++) {
+            matchingCodes[code] = Comparisons.matches(Comparisons.coerce(dictionary.get(code)), op, right);
+        }
+        return rowsWithCodes(matchingCodes, rows);
+    }
+
+    @Override
+    public BitSet blanks() {
+        boolean[] blankCodes = new boolean[dictionary.size()];
+        for (int code = 0; code < blankCodes.length; code++) {
+            blankCodes[code] = dictionary.get(code).isBlank();
+        }
+        return rowsWithCodes(blankCodes, null);
+    }
+
+    @Override
+    public void fill(BitSet rows, Object value) {
+        if (value == null) {
+            super.fill(rows, null);
+            return;
+        }
+        int code = encode((String) value);
+        for (int i = rows.nextSetBit(0); i >= 0; i = rows.nextSetBit(i + 1)) {
+            codes.put(i, code);
+            validity.set(i);
+        }
+    }
+
+    private BitSet rowsWithCodes(boolean[] selectedCodes, int[] rows) {
+        BitSet result = new BitSet(size);
+        int count = rows == null ? size : rows.length;
+        for (int k = 0; k < count; k++) {
+            int i = rows == null ? k : rows[k];
+            if (validity.get(i) && selectedCodes[codes.get(i)]) result.set(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,102 @@
+package filtr.dataset;
+
+import java.nio.DoubleBuffer;
+import java.util.BitSet;
+
+/** Column of doubles, matching the loader's Double cells. */
+public class DoubleColumn extends PrimitiveColumn {
+    private DoubleBuffer values;
+
+    public DoubleColumn(int capacity) {
+        this(capacity, ColumnStorage.HEAP);
+    }
+
+    public DoubleColumn(int capacity, ColumnStorage storage) {
+        super(capacity, storage);
+        this.values = storage.doubles(capacity);
+    }
+
+    DoubleColumn(ColumnStorage storage, DoubleBuffer values, Bitmap validity, int size) {
+        super(storage, validity, size);
+        this.values = values;
+    }
+
+    public double getDouble(int row) {
+        return values.get(row);
+    }
+
+    /** The backing buffer; only the first {@link #size()} values are meaningful. */
+    DoubleBuffer buffer() {
+        return values;
+    }
+
+    @Override
+    public Object get(int row) {
+        return isNull(row) ? null : values.get(row);
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return value == null || value instanceof Double;
+    }
+
+    @Override
+    public void set(int row, Object value) {
+        if (value == null) {
+            validity.clear(row);
+            return;
+        }
+        values.put(row, (Double) value);
+        validity.set(row);
+    }
+
+    @Override
+    public void append(Object value) {
+        int row = nextRow(value != null);
+        if (value != null) values.put(row, (Double) value);
+    }
+
+    public void appendDouble(double value) {
+        int row = nextRow(true);
+        values.put(row, value);
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity > values.capacity()) values = enlarge(values, grow(values.capacity(), capacity), size);
+    }
+
+    @Override
+    protected long valueBytes() {
+        return (long) values.capacity() * Double.BYTES;
+    }
+
+    @Override
+    public Column copy() {
+        return new DoubleColumn(storage, resize(values, size, size), validity.copy(), size);
+    }
+
+    @Override
+    public Column select(int[] rows) {
+        DoubleBuffer selected = storage.doubles(rows.length);
+        for (int i = 0; i < rows.length; i++) {
+            selected.put(i, values.get(rows[i]));
+        }
+        return new DoubleColumn(storage, selected, validity.select(rows), rows.length);
+    }
+
+    @Override
+    public BitSet match(String operator, Object value, int[] rows) {
+        if (!(Comparisons.coerce(value) instanceof Number number)) return super.match(operator, value, rows);
+
+        int op = Comparisons.opcode(operator);
+        double right = number.doubleValue();
+        BitSet result = new BitSet(size);
+        int count = rows == null ? size : rows.length;
+        for (int k = 0; k < count; k++) {
+            int i = rows == null ? k : rows[k];
+            if (validity.get(i) && Comparisons.test(op, values.get(i), right)) result.set(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,20 @@
+package filtr.dataset;
+
+/** Per-export settings, taken from the modifiers after {@code export ... as format}. */
+public class ExportOptions {
+    /** Compress the output file with gzip, adding a .gz suffix. */
+    public boolean gzip;
+    /** Write one directory of files per value of this column; null for none. */
+    public String partitionBy;
+    /** Split the rows (of each partition) evenly over this many files; 0 for no split. */
+    public int parts;
+
+    public static ExportOptions defaults() {
+        return new ExportOptions();
+    }
+
+    /** Whether the export writes a directory of part files instead of one file. */
+    public boolean partitioned() {
+        return partitionBy != null || parts > 0;
+    }
+}
@@ -0,0 +1,64 @@
+package filtr.dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Little-endian windows onto a binary dataset file. A plain file is mapped
+ * read-only region by region (the mappings outlive {@link #close()}); a .gz
+ * file is inflated onto the heap once and sliced. Exports replace a file
+ * rather than rewrite it, so the mappings stay valid even when a dataset is
+ * exported back to the .fltrb or .arrow it was read from.
+ */
+final class FileRegions implements Closeable {
+    private static final int GZIP_BUFFER = 1 << 16;
+
+    private final FileChannel channel; // null when the file was inflated
+    private final ByteBuffer inflated;
+    private final long size;
+
+    private FileRegions(FileChannel channel, ByteBuffer inflated, long size) {
+        this.channel = channel;
+        this.inflated = inflated;
+        this.size = size;
+    }
+
+    static FileRegions open(Path path) throws IOException {
+        if (path.toString().endsWith(".gz")) {
+            byte[] bytes;
+            try (InputStream in = new GZIPInputStream(Files.newInputStream(path), GZIP_BUFFER)) {
+                bytes = in.readAllBytes();
+            }
+            return new FileRegions(null, ByteBuffer.wrap(bytes), bytes.length);
+        }
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        return new FileRegions(channel, null, channel.size());
+    }
+
+    long size() {
+        return size;
+    }
+
+    ByteBuffer region(long offset, long length) throws IOException {
+        if (offset < 0 || length < 0 || offset + length > size) {
+            throw new IOException("Region " + offset + "+" + length + " lies outside the file.");
+        }
+        ByteBuffer region = channel == null
+            ? inflated.slice((int) offset, (int) length)
+            : channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        return region.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) channel.close();
+    }
+}
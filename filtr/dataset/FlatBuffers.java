@@ -0,0 +1,287 @@
+package filtr.dataset;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Just enough of the FlatBuffers encoding to read and write Arrow metadata.
+ * Tables are described up front and laid out front to back: each table is
+ * preceded by its vtable and followed by the objects it refers to, so every
+ * reference points forward as the format requires.
+ */
+final class FlatBuffers {
+
+    private FlatBuffers() {
+    }
+
+    /** A table under construction; fields are added by their schema id. */
+    static final class Table {
+        private final List<Object> fields = new ArrayList<>();
+        private final List<Integer> sizes = new ArrayList<>();
+
+        private Table set(int id, Object value, int size) {
+            while (fields.size() <= id) {
+                fields.add(null);
+                sizes.add(0);
+            }
+            fields.set(id, value);
+            sizes.set(id, size);
+            return this;
+        }
+
+        Table addBool(int id, boolean value) {
+            return set(id, (byte) (value ? 1 : 0), 1);
+        }
+
+        Table addByte(int id, int value) {
+            return set(id, (byte) value, 1);
+        }
+
+        Table addShort(int id, int value) {
+            return set(id, (short) value, 2);
+        }
+
+        Table addInt(int id, int value) {
+            return set(id, value, 4);
+        }
+
+        Table addLong(int id, long value) {
+            return set(id, value, 8);
+        }
+
+        Table addTable(int id, Table value) {
+            return set(id, value, 4);
+        }
+
+        Table addString(int id, String value) {
+            return set(id, value, 4);
+        }
+
+        Table addTables(int id, List<Table> value) {
+            return set(id, new TableVector(value), 4);
+        }
+
+        /** A vector of 8-byte-aligned structs, given as their packed little-endian bytes. */
+        Table addStructs(int id, int count, ByteBuffer packed) {
+            return set(id, new StructVector(count, packed), 4);
+        }
+    }
+
+    private record TableVector(List<Table> tables) {
+    }
+
+    private record StructVector(int count, ByteBuffer packed) {
+    }
+
+    /** Encodes a root table; the result starts at offset 0 and is a multiple of 8 bytes long. */
+    static ByteBuffer encode(Table root) {
+        Encoder encoder = new Encoder();
+        encoder.bytes.putInt(0);
+        int at = encoder.table(root);
+        encoder.bytes.putInt(0, at);
+        encoder.align(8);
+        return encoder.bytes.flip();
+    }
+
+    private static final class Encoder {
+        private ByteBuffer bytes = ByteBuffer.allocate(512).order(ByteOrder.LITTLE_ENDIAN);
+
+        private void ensure(int more) {
+            if (bytes.remaining() < more) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(bytes.capacity() * 2, bytes.position() + more))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+                bytes.flip();
+                bytes = grown.put(bytes);
+            }
+        }
+
+        private void align(int alignment) {
+            int padding = -bytes.position() & (alignment - 1);
+            ensure(padding);
+            bytes.put(new byte[padding]);
+        }
+
+        /** Points the offset slot at {@code slot} to {@code target}. */
+        private void link(int slot, int target) {
+            bytes.putInt(slot, target - slot);
+        }
+
+        private int table(Table table) {
+            // Lay the inline fields out largest first so each sits on its own size
+            int count = table.fields.size();
+            Integer[] order = new Integer[count];
+            for (int i = 0; i < count; i++) order[i] = i;
+            Arrays.sort(order, (a, b) -> table.sizes.get(b) - table.sizes.get(a));
+            int[] offsets = new int[count];
+            int inline = 4;
+            int alignment = 4;
+            for (int id : order) {
+                int size = table.sizes.get(id);
+                if (table.fields.get(id) == null) continue;
+                inline = (inline + size - 1) & -size;
+                offsets[id] = inline;
+                inline += size;
+                alignment = Math.max(alignment, size);
+            }
+
+            align(2);
+            int vtable = bytes.position();
+            ensure(4 + 2 * count);
+            bytes.putShort((short) (4 + 2 * count)).putShort((short) inline);
+            for (int id = 0; id < count; id++) {
+                bytes.putShort((short) offsets[id]);
+            }
+
+            align(alignment);
+            int start = bytes.position();
+            ensure(inline);
+            bytes.putInt(start - vtable);
+            bytes.put(new byte[inline - 4]);
+            for (int id = 0; id < count; id++) {
+                Object value = table.fields.get(id);
+                int slot = start + offsets[id];
+                if (value instanceof Byte v) bytes.put(slot, v);
+                else if (value instanceof Short v) bytes.putShort(slot, v);
+                else if (value instanceof Integer v) bytes.putInt(slot, v);
+                else if (value instanceof Long v) bytes.putLong(slot, v);
+            }
+
+            // Referenced objects follow the table
+            for (int id = 0; id < count; id++) {
+                Object value = table.fields.get(id);
+                int slot = start + offsets[id];
+                if (value instanceof Table child) link(slot, table(child));
+                else if (value instanceof String text) link(slot, string(text));
+                else if (value instanceof TableVector vector) link(slot, tables(vector.tables()));
+                else if (value instanceof StructVector vector) link(slot, structs(vector));
+            }
+            return start;
+        }
+
+        private int string(String text) {
+            byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+            align(4);
+            int start = bytes.position();
+            ensure(4 + encoded.length + 1);
+            bytes.putInt(encoded.length).put(encoded).put((byte) 0);
+            return start;
+        }
+
+        private int tables(List<Table> tables) {
+            align(4);
+            int start = bytes.position();
+            ensure(4 + 4 * tables.size());
+            bytes.putInt(tables.size());
+            bytes.put(new byte[4 * tables.size()]);
+            for (int i = 0; i < tables.size(); i++) {
+                link(start + 4 + 4 * i, table(tables.get(i)));
+            }
+            return start;
+        }
+
+        private int structs(StructVector vector) {
+            // The length prefix goes just before an 8-byte boundary so the structs land on one
+            align(8);
+            ensure(4);
+            bytes.putInt(0);
+            int start = bytes.position();
+            ensure(4 + vector.packed().remaining());
+            bytes.putInt(vector.count()).put(vector.packed().duplicate());
+            return start;
+        }
+    }
+
+    /** Read access to an encoded table. */
+    static final class Reader {
+        private final ByteBuffer bytes;
+        private final int position;
+
+        private Reader(ByteBuffer bytes, int position) {
+            this.bytes = bytes;
+            this.position = position;
+        }
+
+        /** The root table of an encoded buffer, read little-endian from its start. */
+        static Reader root(ByteBuffer buffer) {
+            ByteBuffer bytes = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+            return new Reader(bytes, bytes.getInt(0));
+        }
+
+        /** Offset of a field within this table, or 0 when it is absent. */
+        private int field(int id) {
+            int vtable = position - bytes.getInt(position);
+            int slot = 4 + 2 * id;
+            return slot < (bytes.getShort(vtable) & 0xFFFF) ? bytes.getShort(vtable + slot) & 0xFFFF : 0;
+        }
+
+        boolean getBool(int id, boolean otherwise) {
+            int at = field(id);
+            return at == 0 ? otherwise : bytes.get(position + at) != 0;
+        }
+
+        int getByte(int id, int otherwise) {
+            int at = field(id);
+            return at == 0 ? otherwise : bytes.get(position + at) & 0xFF;
+        }
+
+        int getShort(int id, int otherwise) {
+            int at = field(id);
+            return at == 0 ? otherwise : bytes.getShort(position + at);
+        }
+
+        int getInt(int id, int otherwise) {
+            int at = field(id);
+            return at == 0 ? otherwise : bytes.getInt(position + at);
+        }
+
+        long getLong(int id, long otherwise) {
+            int at = field(id);
+            return at == 0 ? otherwise : bytes.getLong(position + at);
+        }
+
+        private int follow(int id) {
+            int at = field(id);
+            if (at == 0) return -1;
+            int slot = position + at;
+            return slot + bytes.getInt(slot);
+        }
+
+        /** A child table, or null when absent. */
+        Reader table(int id) {
+            int at = follow(id);
+            return at < 0 ? null : new Reader(bytes, at);
+        }
+
+        String string(int id) {
+            int at = follow(id);
+            if (at < 0) return null;
+            byte[] encoded = new byte[bytes.getInt(at)];
+            bytes.get(at + 4, encoded);
+            return new String(encoded, StandardCharsets.UTF_8);
+        }
+
+        int vectorLength(int id) {
+            int at = follow(id);
+            return at < 0 ? 0 : bytes.getInt(at);
+        }
+
+        /** Element {@code index} of a vector of tables. */
+        Reader table(int id, int index) {
+            int slot = follow(id) + 4 + 4 * index;
+            return new Reader(bytes, slot + bytes.getInt(slot));
+        }
+
+        /** A field of struct {@code index} in a vector of structs {@code width} bytes wide. */
+        long structLong(int id, int index, int width, int offset) {
+            return bytes.getLong(follow(id) + 4 + width * index + offset);
+        }
+
+        int structInt(int id, int index, int width, int offset) {
+            return bytes.getInt(follow(id) + 4 + width * index + offset);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * filtR's own binary columnar file (.fltrb): the column vectors written out
+ * as they sit in memory, so reloading a saved dataset is a matter of mapping
+ * the file rather than parsing and inferring types again.
+ *
+ * <pre>
+ * magic "FLTRB\0\0\1"
+ * buffers, each little-endian and starting on an 8-byte boundary
+ * footer: rowCount, columnCount, then per column its name, kind, and the
+ *         offset and length of each of its buffers
+ * footer offset (long), magic
+ * </pre>
+ *
+ * Every column has a validity bitmap (one bit per row, set = present) as its
+ * first buffer. Typed values, boolean bits, dictionary codes and UTF-8 string
+ * data are mapped straight into columns; dictionaries are decoded on load,
+ * and mixed-type columns are stored one tagged cell at a time. A .fltrb.gz
+ * is inflated onto the heap and read the same way.
+ */
+final class FltrbFormat {
+    private static final byte[] MAGIC = {'F', 'L', 'T', 'R', 'B', 0, 0, 1};
+
+    // Column kinds
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte DATE = 5;
+    private static final byte DICTIONARY = 6;
+    private static final byte UTF8 = 7;
+    private static final byte MIXED = 8;
+
+    // Cell tags for mixed columns
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_INT = 1;
+    private static final byte TAG_LONG = 2;
+    private static final byte TAG_DOUBLE = 3;
+    private static final byte TAG_BOOLEAN = 4;
+    private static final byte TAG_DATE = 5;
+    private static final byte TAG_STRING = 6;
+
+    private FltrbFormat() {
+    }
+
+    // ---- Writing ----
+
+    static void write(OutputStream stream, List<String> names, Column[] columns, int rows) throws IOException {
+        BufferWriter writer = new BufferWriter(stream);
+        writer.put(ByteBuffer.wrap(MAGIC));
+
+        Footer footer = new Footer();
+        footer.putInt(rows);
+        footer.putInt(columns.length);
+        for (int j = 0; j < columns.length; j++) {
+            footer.putString(names.get(j));
+            writeColumn(writer, footer, columns[j], rows);
+        }
+
+        long footerOffset = writer.align();
+        writer.put(footer.finish());
+        writer.chunk(16).putLong(footerOffset).put(MAGIC);
+        writer.flush();
+    }
+
+    private static void writeColumn(BufferWriter writer, Footer footer, Column column, int rows) throws IOException {
+        if (column instanceof IntColumn ints) {
+            footer.putByte(INT);
+            footer.buffers(writer.bits(ints.validity, rows), writer.ints(ints.buffer(), rows));
+        } else if (column instanceof DateColumn dates) {
+            footer.putByte(DATE);
+            footer.buffers(writer.bits(dates.validity, rows), writer.ints(dates.buffer(), rows));
+        } else if (column instanceof LongColumn longs) {
+            footer.putByte(LONG);
+            footer.buffers(writer.bits(longs.validity, rows), writer.longs(longs.buffer(), rows));
+        } else if (column instanceof DoubleColumn doubles) {
+            footer.putByte(DOUBLE);
+            footer.buffers(writer.bits(doubles.validity, rows), writer.doubles(doubles.buffer(), rows));
+        } else if (column instanceof BooleanColumn booleans) {
+            footer.putByte(BOOLEAN);
+            footer.buffers(writer.bits(booleans.validity, rows), writer.bits(booleans.bits(), rows));
+        } else if (column instanceof DictionaryColumn dict) {
+            footer.putByte(DICTIONARY);
+            List<ByteBuffer> values = new ArrayList<>(dict.cardinality());
+            for (int code = 0; code < dict.cardinality(); code++) {
+                values.add(StandardCharsets.UTF_8.encode(dict.decode(code)));
+            }
+            long[] validity = writer.bits(dict.validity, rows);
+            long[] codes = writer.ints(dict.codes(), rows);
+            long[][] strings = strings(writer, values);
+            footer.buffers(validity, codes, strings[0], strings[1], strings[2]);
+        } else if (column instanceof Utf8Column utf8) {
+            footer.putByte(UTF8);
+            List<ByteBuffer> values = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                values.add(utf8.isNull(i) ? null : utf8.bytes(i));
+            }
+            long[] validity = writer.bits(utf8.validity, rows);
+            long[][] strings = strings(writer, values);
+            footer.buffers(validity, strings[0], strings[1], strings[2]);
+        } else if (allStrings(column, rows)) {
+            footer.putByte(UTF8);
+            Bitmap validity = new Bitmap(rows);
+            List<ByteBuffer> values = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                String value = (String) column.get(i);
+                validity.set(i, value != null);
+                values.add(value == null ? null : StandardCharsets.UTF_8.encode(value));
+            }
+            long[] bits = writer.bits(validity, rows);
+            long[][] strings = strings(writer, values);
+            footer.buffers(bits, strings[0], strings[1], strings[2]);
+        } else {
+            footer.putByte(MIXED);
+            Bitmap validity = new Bitmap(rows);
+            for (int i = 0; i < rows; i++) {
+                validity.set(i, !column.isNull(i));
+            }
+            footer.buffers(writer.bits(validity, rows), mixed(writer, column, rows));
+        }
+    }
+
+    static boolean allStrings(Column column, int rows) {
+        for (int i = 0; i < rows; i++) {
+            Object value = column.get(i);
+            if (value != null && !(value instanceof String)) return false;
+        }
+        return true;
+    }
+
+    /** Strings as three buffers: start offsets, lengths, UTF-8 bytes. NULL is an empty entry. */
+    private static long[][] strings(BufferWriter writer, List<ByteBuffer> values) throws IOException {
+        int[] starts = new int[values.size()];
+        int[] lengths = new int[values.size()];
+        long total = 0;
+        for (int i = 0; i < values.size(); i++) {
+            ByteBuffer value = values.get(i);
+            int length = value == null ? 0 : value.remaining();
+            if (total + length > Integer.MAX_VALUE) {
+                throw new IOException("String column too large for the fltrb format.");
+            }
+            starts[i] = (int) total;
+            lengths[i] = length;
+            total += length;
+        }
+        long[] startBuffer = writer.ints(IntBuffer.wrap(starts), starts.length);
+        long[] lengthBuffer = writer.ints(IntBuffer.wrap(lengths), lengths.length);
+        long begin = writer.align();
+        for (ByteBuffer value : values) {
+            if (value != null) writer.put(value.duplicate());
+        }
+        return new long[][] {startBuffer, lengthBuffer, {begin, writer.position() - begin}};
+    }
+
+    /** One tag byte per cell, then its payload. */
+    private static long[] mixed(BufferWriter writer, Column column, int rows) throws IOException {
+        long start = writer.align();
+        for (int i = 0; i < rows; i++) {
+            Object value = column.get(i);
+            ByteBuffer cell = writer.chunk(1 + Long.BYTES);
+            if (value == null) {
+                cell.put(TAG_NULL);
+            } else if (value instanceof Integer v) {
+                cell.put(TAG_INT).putInt(v);
+            } else if (value instanceof Long v) {
+                cell.put(TAG_LONG).putLong(v);
+            } else if (value instanceof Number v) {
+                cell.put(TAG_DOUBLE).putDouble(v.doubleValue());
+            } else if (value instanceof Boolean v) {
+                cell.put(TAG_BOOLEAN).put((byte) (v ? 1 : 0));
+            } else if (value instanceof LocalDate v) {
+                cell.put(TAG_DATE).putInt((int) v.toEpochDay());
+            } else {
+                ByteBuffer text = StandardCharsets.UTF_8.encode(value.toString());
+                cell.put(TAG_STRING).putInt(text.remaining());
+                writer.put(text);
+            }
+        }
+        return new long[] {start, writer.position() - start};
+    }
+
+    /** Column directory, built up while the buffers are written. */
+    private static final class Footer {
+        private ByteBuffer bytes = ByteBuffer.allocate(256).order(ByteOrder.LITTLE_ENDIAN);
+
+        private void ensure(int more) {
+            if (bytes.remaining() < more) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(bytes.capacity() * 2, bytes.position() + more))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+                bytes.flip();
+                bytes = grown.put(bytes);
+            }
+        }
+
+        void putByte(byte value) {
+            ensure(1);
+            bytes.put(value);
+        }
+
+        void putInt(int value) {
+            ensure(Integer.BYTES);
+            bytes.putInt(value);
+        }
+
+        void putString(String value) {
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            putInt(encoded.length);
+            ensure(encoded.length);
+            bytes.put(encoded);
+        }
+
+        void buffers(long[]... regions) {
+            putInt(regions.length);
+            for (long[] region : regions) {
+                ensure(2 * Long.BYTES);
+                bytes.putLong(region[0]).putLong(region[1]);
+            }
+        }
+
+        ByteBuffer finish() {
+            return bytes.flip();
+        }
+    }
+
+    // ---- Reading ----
+
+    /** Maps a .fltrb file; a .fltrb.gz is inflated onto the heap first. */
+    static Dataset read(Path path, LoadOptions options) throws IOException {
+        try (FileRegions file = FileRegions.open(path)) {
+            long size = file.size();
+            if (size < MAGIC.length + 16) throw new IOException("Not a fltrb file.");
+            ByteBuffer head = file.region(0, MAGIC.length);
+            ByteBuffer tail = file.region(size - 16, 16);
+            long footerOffset = tail.getLong();
+            if (!hasMagic(head, 0) || !hasMagic(tail, 8)) throw new IOException("Not a fltrb file.");
+            if (footerOffset < MAGIC.length || footerOffset > size - 16) throw new IOException("Corrupt fltrb footer.");
+
+            ByteBuffer footer = file.region(footerOffset, size - 16 - footerOffset);
+            int rows = footer.getInt();
+            int count = footer.getInt();
+            ColumnStorage storage = options.storage();
+            List<String> names = new ArrayList<>(count);
+            Column[] columns = new Column[count];
+            for (int j = 0; j < count; j++) {
+                byte[] name = new byte[footer.getInt()];
+                footer.get(name);
+                names.add(new String(name, StandardCharsets.UTF_8));
+                byte kind = footer.get();
+                ByteBuffer[] buffers = new ByteBuffer[footer.getInt()];
+                for (int b = 0; b < buffers.length; b++) {
+                    long offset = footer.getLong();
+                    long length = footer.getLong();
+                    if (offset + length > footerOffset) throw new IOException("Corrupt fltrb footer.");
+                    buffers[b] = file.region(offset, length);
+                }
+                columns[j] = readColumn(kind, buffers, rows, storage);
+                // Mapped buffers are read-only: any write goes to a copy
+                columns[j].markShared();
+            }
+            return new Dataset(names, columns, storage instanceof OffHeapArena arena ? arena : null);
+        }
+    }
+
+    private static boolean hasMagic(ByteBuffer buffer, int offset) {
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.get(offset + i) != MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    private static Column readColumn(byte kind, ByteBuffer[] buffers, int rows, ColumnStorage storage) throws IOException {
+        Bitmap validity = bitmap(buffers[0]);
+        switch (kind) {
+            case INT:
+                return new IntColumn(storage, buffers[1].asIntBuffer(), validity, rows);
+            case DATE:
+                return new DateColumn(storage, buffers[1].asIntBuffer(), validity, rows);
+            case LONG:
+                return new LongColumn(storage, buffers[1].asLongBuffer(), validity, rows);
+            case DOUBLE:
+                return new DoubleColumn(storage, buffers[1].asDoubleBuffer(), validity, rows);
+            case BOOLEAN:
+                return new BooleanColumn(bitmap(buffers[1]), validity, rows);
+            case DICTIONARY: {
+                IntBuffer starts = buffers[2].asIntBuffer();
+                IntBuffer lengths = buffers[3].asIntBuffer();
+                List<String> dictionary = new ArrayList<>(starts.remaining());
+                for (int code = 0; code < starts.remaining(); code++) {
+                    byte[] bytes = new byte[lengths.get(code)];
+                    buffers[4].get(starts.get(code), bytes);
+                    dictionary.add(new String(bytes, StandardCharsets.UTF_8));
+                }
+                return new DictionaryColumn(storage, dictionary, buffers[1].asIntBuffer(), validity, rows);
+            }
+            case UTF8:
+                return new Utf8Column(storage, buffers[3], buffers[1].asIntBuffer(), buffers[2].asIntBuffer(), validity, rows);
+            case MIXED:
+                return mixed(buffers[1], rows);
+            default:
+                throw new IOException("Unknown fltrb column kind " + kind + ".");
+        }
+    }
+
+    private static Bitmap bitmap(ByteBuffer buffer) {
+        long[] words = new long[Math.max(1, buffer.remaining() / Long.BYTES)];
+        buffer.asLongBuffer().get(words, 0, buffer.remaining() / Long.BYTES);
+        return new Bitmap(words);
+    }
+
+    private static Column mixed(ByteBuffer cells, int rows) throws IOException {
+        ObjectColumn column = new ObjectColumn(rows);
+        for (int i = 0; i < rows; i++) {
+            byte tag = cells.get();
+            switch (tag) {
+                case TAG_NULL -> column.append(null);
+                case TAG_INT -> column.append(cells.getInt());
+                case TAG_LONG -> column.append(cells.getLong());
+                case TAG_DOUBLE -> column.append(cells.getDouble());
+                case TAG_BOOLEAN -> column.append(cells.get() != 0);
+                case TAG_DATE -> column.append(LocalDate.ofEpochDay(cells.getInt()));
+                case TAG_STRING -> {
+                    byte[] bytes = new byte[cells.getInt()];
+                    cells.get(bytes);
+                    column.append(new String(bytes, StandardCharsets.UTF_8));
+                }
+                default -> throw new IOException("Corrupt fltrb cell tag " + tag + ".");
+            }
+        }
+        return column;
+    }
+}
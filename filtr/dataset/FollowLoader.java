@@ -0,0 +1,226 @@
+package filtr.dataset;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Imports of growing, append-only CSV files such as logs, marked
+ * {@code follow}. The first import reads the file and remembers the byte offset
+ * it reached; importing the same file again (from the REPL, or in a loop)
+ * parses only the records appended since and adds them to the same dataset,
+ * continuing filtrID where it stopped.
+ *
+ * Only whole records are read: a last line still missing its line break waits
+ * for the next import. The file is read again from the start when it shrank,
+ * its header changed, or the bytes just before the offset no longer match.
+ * Followed datasets live on the heap and keep every row and column, since a
+ * later import may be followed by statements that read what this one skipped.
+ *
+ * Like a cached import, every import hands out its own copy-on-write handle,
+ * so a fill or add column through one binding never reaches another. A file
+ * is forgotten, rows and all, once no variable refers to any of its handles.
+ */
+final class FollowLoader {
+    private static final int SCAN_BUFFER = 1 << 16;
+    private static final int TAIL_BYTES = 1 << 12;
+
+    /** Where whole records end in a byte range: after its first and last line break outside quotes. */
+    private record Scan(long first, long last, long lines) {
+    }
+
+    private static final Map<Path, FollowLoader> follows = new HashMap<>();
+
+    private Dataset dataset;
+    private List<String> columns;      // the dataset's columns as loaded, filtrID first
+    private byte[] header;             // the header line, line break included
+    private int width;                 // fields per record
+    private int own = -1;              // field holding the file's own filtrID, which is dropped
+    private TypeInference[] inference; // one per field, carried across imports
+    private long offset;               // just past the last record read
+    private long tail;                 // checksum of the bytes just before offset
+    private long lines;                // line breaks before offset
+    private int records;               // records read so far, which filtrID numbers
+    private int handles;               // handles handed out that a variable may still refer to
+
+    private FollowLoader() {
+    }
+
+    /** The file's dataset, grown by whatever was appended since the last import. */
+    static synchronized Dataset load(String path) throws IOException {
+        Path file = Paths.get(path).toRealPath();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            FollowLoader follow = follows.get(file);
+            if (follow != null && follow.continues(channel, size)) {
+                int before = follow.dataset.size();
+                follow.read(channel, size, follow.dataset::appendRow);
+                System.out.println("Following CSV dataset " + path + ": " + (follow.dataset.size() - before) + " new rows");
+                return follow.handle(file);
+            }
+
+            System.out.println("Loading CSV dataset from: " + path);
+            follow = new FollowLoader();
+            follow.start(channel, size);
+            follows.put(file, follow);
+            return follow.handle(file);
+        }
+    }
+
+    /** A copy-on-write handle on the rows read so far. */
+    private Dataset handle(Path file) {
+        Dataset handle = dataset.share();
+        handles++;
+        handle.whenUnbound(() -> forget(file, this));
+        return handle;
+    }
+
+    /** Drops the file's loader and rows once the last handle is let go. */
+    private static synchronized void forget(Path file, FollowLoader follow) {
+        if (--follow.handles == 0 && follows.get(file) == follow) follows.remove(file);
+    }
+
+    /** Reads the header and every whole record into a new dataset. */
+    private void start(FileChannel channel, long size) throws IOException {
+        Scan scan = scan(channel, 0, size);
+        if (scan.first < 0) throw new IOException("Empty CSV file.");
+        header = bytes(channel, 0, scan.first);
+        List<String> fields = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(new InputStreamReader(new ByteArrayInputStream(header), StandardCharsets.UTF_8))) {
+            reader.next(fields);
+        }
+
+        width = fields.size();
+        columns = new ArrayList<>();
+        columns.add("filtrID");
+        for (int j = 0; j < width; j++) {
+            String name = fields.get(j).trim();
+            // As in any load, a filtrID field in the file gives way to the built-in one
+            if (name.equals("filtrID") && own < 0) {
+                own = j;
+                continue;
+            }
+            columns.add(name);
+        }
+        inference = new TypeInference[width];
+        for (int j = 0; j < width; j++) {
+            inference[j] = new TypeInference();
+        }
+
+        offset = scan.first;
+        lines = 1;
+        tail = checksum(channel, offset);
+        ColumnBuilder[] builders = new ColumnBuilder[columns.size()];
+        for (int c = 0; c < builders.length; c++) {
+            builders[c] = new ColumnBuilder(DatasetLoader.INITIAL_CAPACITY);
+        }
+        read(channel, size, row -> {
+            for (int c = 0; c < row.length; c++) {
+                builders[c].append(row[c]);
+            }
+        });
+        Column[] vectors = new Column[builders.length];
+        for (int c = 0; c < vectors.length; c++) {
+            vectors[c] = builders[c].build();
+        }
+        dataset = new Dataset(columns, vectors);
+    }
+
+    /** Whether the file still begins with what was read, so reading can resume at the offset. */
+    private boolean continues(FileChannel channel, long size) throws IOException {
+        if (size < offset) return false;
+        if (!Arrays.equals(bytes(channel, 0, header.length), header)) return false;
+        return checksum(channel, offset) == tail;
+    }
+
+    /** Parses the whole records between the offset and {@code size}, handing each row (filtrID first) to {@code rows}. */
+    private void read(FileChannel channel, long size, Consumer<Object[]> rows) throws IOException {
+        Scan scan = scan(channel, offset, size);
+        if (scan.last < 0) return;
+
+        InputStream range = new RangeInputStream(channel, offset, scan.last);
+        try (CsvReader reader = new CsvReader(new InputStreamReader(range, StandardCharsets.UTF_8))) {
+            List<String> fields = new ArrayList<>();
+            while (reader.next(fields)) {
+                records++;
+                if (fields.size() == 1 && fields.get(0).isBlank()) continue;
+
+                if (fields.size() != width) {
+                    System.err.println("Skipping malformed line " + (lines + reader.recordLine()) + ": " + String.join(",", fields).trim());
+                    continue;
+                }
+
+                Object[] row = new Object[columns.size()];
+                row[0] = records;
+                for (int j = 0, c = 1; j < width; j++) {
+                    if (j != own) row[c++] = inference[j].inferNext(DatasetLoader.cleanCell(fields.get(j)));
+                }
+                rows.accept(row);
+            }
+        }
+        offset = scan.last;
+        lines += scan.lines;
+        tail = checksum(channel, offset);
+    }
+
+    /** Finds record boundaries in [from, to), which must start at one; quotes are matched by parity. */
+    private static Scan scan(FileChannel channel, long from, long to) throws IOException {
+        long first = -1;
+        long last = -1;
+        long lines = 0;
+        long breaks = 0;
+        boolean quoted = false;
+        byte[] buffer = new byte[SCAN_BUFFER];
+        long position = from;
+        try (InputStream in = new RangeInputStream(channel, from, to)) {
+            int read;
+            while ((read = in.read(buffer, 0, buffer.length)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '"') {
+                        quoted = !quoted;
+                    } else if (buffer[i] == '\n') {
+                        breaks++;
+                        if (quoted) continue;
+                        last = position + i + 1;
+                        lines = breaks;
+                        if (first < 0) first = last;
+                    }
+                }
+                position += read;
+            }
+        }
+        return new Scan(first, last, lines);
+    }
+
+    private static byte[] bytes(FileChannel channel, long from, long to) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) (to - from));
+        long position = from;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) break;
+            position += read;
+        }
+        return buffer.array();
+    }
+
+    /** CRC-32 of the {@link #TAIL_BYTES} before {@code end}. */
+    private static long checksum(FileChannel channel, long end) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(bytes(channel, Math.max(0, end - TAIL_BYTES), end));
+        return crc.getValue();
+    }
+}
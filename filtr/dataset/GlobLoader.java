@@ -0,0 +1,149 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Imports every file matching a glob such as {@code events/2026-10-*.csv} as
+ * one dataset. Each file is loaded on its own task, through the usual loader
+ * (so the cache and schema sidecars apply per file), then the results are
+ * joined in path order.
+ *
+ * The joined dataset has every column any file has, in order of first
+ * appearance; a file without a column contributes NULLs. filtrID numbers the
+ * joined rows from 1, so it depends only on the set of files and their contents.
+ */
+final class GlobLoader {
+
+    private GlobLoader() {
+    }
+
+    /**
+     * Whether a path names files by pattern rather than one file. A file that
+     * exists under the literal name, such as {@code data[1].csv}, is always
+     * that file.
+     */
+    static boolean isGlob(String path) {
+        if (path.chars().noneMatch(c -> c == '*' || c == '?' || c == '[' || c == '{')) return false;
+        try {
+            return !Files.exists(Paths.get(path));
+        } catch (InvalidPathException e) {
+            return true;
+        }
+    }
+
+    static Dataset load(String pattern, LoadOptions options) throws IOException {
+        List<Path> files = expand(pattern);
+        if (files.isEmpty()) throw new IOException("No files match " + pattern);
+        System.out.println("Loading " + files.size() + " files matching: " + pattern);
+
+        // Each file lands on the heap first and is copied into the final storage once.
+        // A pushed-down filter is left to the filter statement, so filtrID still counts every row.
+        LoadOptions each = LoadOptions.defaults();
+        each.parallel = options.parallel;
+        each.mapped = options.mapped;
+        each.columns = options.columns;
+
+        List<Callable<Dataset>> loads = new ArrayList<>();
+        for (Path file : files) {
+            loads.add(() -> DatasetLoader.load(file.toString(), each));
+        }
+        int threads = options.threads > 0 ? options.threads : ForkJoinPool.getCommonPoolParallelism();
+        List<Dataset> parts = ParallelTasks.invokeAll(loads, Math.min(threads, files.size()));
+        return union(parts, options);
+    }
+
+    /** Data files under the pattern's fixed leading directories that match it, sorted by path. */
+    private static List<Path> expand(String pattern) throws IOException {
+        Path base = Paths.get("");
+        Path rest = Paths.get(pattern);
+        if (rest.isAbsolute()) {
+            base = rest.getRoot();
+            rest = base.relativize(rest);
+        }
+        int fixed = 0;
+        while (fixed < rest.getNameCount() - 1 && !isGlob(rest.getName(fixed).toString())) {
+            fixed++;
+        }
+        if (fixed > 0) {
+            base = base.resolve(rest.subpath(0, fixed));
+            rest = rest.subpath(fixed, rest.getNameCount());
+        }
+
+        boolean relative = base.toString().isEmpty();
+        Path root = relative ? Paths.get(".") : base;
+        if (!Files.isDirectory(root)) return List.of();
+        PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + rest);
+        int depth = rest.toString().contains("**") ? Integer.MAX_VALUE : rest.getNameCount();
+        try (Stream<Path> walk = Files.walk(root, depth)) {
+            return walk.filter(Files::isRegularFile)
+                .filter(file -> !file.toString().endsWith(SchemaSidecar.SUFFIX))
+                .filter(file -> matcher.matches(root.relativize(file)))
+                .sorted(Comparator.comparing(Path::toString))
+                .map(file -> relative ? root.relativize(file) : file)
+                .toList();
+        }
+    }
+
+    /** Stacks the parts in order under the union of their columns. */
+    private static Dataset union(List<Dataset> parts, LoadOptions options) throws IOException {
+        Set<String> names = new LinkedHashSet<>();
+        int total = 0;
+        for (Dataset part : parts) {
+            names.addAll(part.getColumns());
+            total += part.size();
+        }
+        names.remove("filtrID");
+
+        ColumnStorage storage = options.storage();
+        IntColumn ids = new IntColumn(Math.max(total, 1), storage);
+        for (int row = 1; row <= total; row++) {
+            ids.appendInt(row);
+        }
+
+        List<Column[]> vectors = new ArrayList<>();
+        for (Dataset part : parts) {
+            vectors.add(part.selectedVectors());
+        }
+        List<String> columns = new ArrayList<>(names);
+        List<Callable<Column>> joins = new ArrayList<>();
+        for (String name : columns) {
+            int rows = total;
+            joins.add(() -> options.loads(name) ? join(parts, vectors, name, storage) : new SkippedColumn(rows));
+        }
+        List<Column> joined = ParallelTasks.invokeAll(joins);
+
+        columns.add(0, "filtrID");
+        Column[] all = new Column[columns.size()];
+        all[0] = ids;
+        for (int j = 1; j < all.length; j++) {
+            all[j] = joined.get(j - 1);
+        }
+        return new Dataset(columns, all, storage instanceof OffHeapArena arena ? arena : null);
+    }
+
+    /** One column across every part, NULL where a part doesn't have it. */
+    private static Column join(List<Dataset> parts, List<Column[]> vectors, String name, ColumnStorage storage) {
+        Column[] pieces = new Column[parts.size()];
+        int[] sizes = new int[pieces.length];
+        for (int k = 0; k < pieces.length; k++) {
+            int ordinal = parts.get(k).getColumns().indexOf(name);
+            pieces[k] = ordinal < 0 ? null : vectors.get(k)[ordinal];
+            sizes[k] = parts.get(k).size();
+        }
+        return ColumnBuilder.concat(pieces, sizes, storage);
+    }
+}
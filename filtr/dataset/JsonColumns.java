@@ -0,0 +1,97 @@
+package filtr.dataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columns filled from a sequence of JSON objects. The columns are the union of
+ * the objects' keys in first-seen order; a key first seen late gets a column
+ * whose earlier rows are NULL, and a key missing from an object is NULL there.
+ * Keys outside the projection are recorded but get no builder.
+ */
+final class JsonColumns {
+    private final ColumnStorage storage;
+    private final int capacity;
+    private final Set<String> projection; // null keeps every key
+    private final List<String> keys = new ArrayList<>();
+    private final Map<String, Integer> positions = new HashMap<>();
+    private final List<ColumnBuilder> builders = new ArrayList<>();
+    private Object[] cells = new Object[0];
+    private int rows;
+
+    JsonColumns(int capacity, ColumnStorage storage, Set<String> projection) {
+        this.capacity = capacity;
+        this.storage = storage;
+        this.projection = projection;
+    }
+
+    void add(Map<String, Object> object) {
+        Arrays.fill(cells, null);
+        for (Map.Entry<String, Object> field : object.entrySet()) {
+            int j = register(field.getKey());
+            if (builders.get(j) != null) cells[j] = DatasetLoader.normalizeJSONValue(field.getValue());
+        }
+        for (int j = 0; j < builders.size(); j++) {
+            if (builders.get(j) != null) builders.get(j).append(cells[j]);
+        }
+        rows++;
+    }
+
+    /**
+     * Adds the object if it passes the filter (always when there is none). A
+     * rejected object still contributes its keys, so the columns come out the
+     * same as loading everything and filtering afterwards.
+     */
+    boolean addIf(Map<String, Object> object, RowFilter where) {
+        if (where == null || where.accepts(DatasetLoader.normalizeJSONValue(object.get(where.column)))) {
+            add(object);
+            return true;
+        }
+        for (String key : object.keySet()) {
+            register(key);
+        }
+        return false;
+    }
+
+    /** Position of a key, giving it a column (NULL in every earlier row) the first time it is seen. */
+    private int register(String key) {
+        Integer j = positions.get(key);
+        if (j != null) return j;
+        j = builders.size();
+        positions.put(key, j);
+        keys.add(key);
+        ColumnBuilder builder = null;
+        if (projection == null || projection.contains(key)) {
+            builder = new ColumnBuilder(capacity, storage);
+            for (int row = 0; row < rows; row++) {
+                builder.append(null);
+            }
+        }
+        builders.add(builder);
+        cells = Arrays.copyOf(cells, builders.size());
+        return j;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    List<String> keys() {
+        return keys;
+    }
+
+    /** Position of a key in {@link #keys()}, or -1. */
+    int position(String key) {
+        Integer j = positions.get(key);
+        return j == null ? -1 : j;
+    }
+
+    /** One builder per key, null for a key outside the projection. */
+    ColumnBuilder[] builders() {
+        return builders.toArray(new ColumnBuilder[0]);
+    }
+}
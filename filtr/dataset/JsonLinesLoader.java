@@ -0,0 +1,196 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * JSON Lines import (.jsonl / .ndjson): one object per line. Every line break
+ * ends a record, since JSON strings can't hold a raw newline, so the file is
+ * cut into byte ranges at line breaks and the ranges are parsed concurrently,
+ * then joined in file order. Columns are the union of all keys, as for JSON.
+ */
+final class JsonLinesLoader {
+    private static final long MIN_RANGE_BYTES = 1 << 20;
+    private static final int SCAN_BUFFER = 1 << 16;
+
+    private JsonLinesLoader() {
+    }
+
+    static Dataset load(Path path, LoadOptions options) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = split(channel, channel.size());
+            List<Callable<Chunk>> parses = new ArrayList<>();
+            for (int k = 0; k + 1 < bounds.length; k++) {
+                long from = bounds[k];
+                long to = bounds[k + 1];
+                parses.add(() -> parse(channel, from, to, options));
+            }
+            List<Chunk> chunks = ParallelTasks.invokeAll(parses);
+
+            // The first error in file order, numbered from the top of the file
+            long lineOffset = 0;
+            int records = 0;
+            int total = 0;
+            Set<String> keys = new LinkedHashSet<>();
+            for (Chunk chunk : chunks) {
+                if (chunk.failure != null) throw chunk.failure.shifted(lineOffset);
+                lineOffset += chunk.lineBreaks;
+                records += chunk.records;
+                total += chunk.rows;
+                keys.addAll(chunk.fields.keys());
+            }
+            if (records == 0) throw new IOException("Empty JSON Lines file.");
+
+            // filtrID is the record's position in the file, continuing from the ranges before
+            ColumnStorage storage = options.storage();
+            IntColumn ids = new IntColumn(Math.max(total, 1), storage);
+            int recordOffset = 0;
+            for (Chunk chunk : chunks) {
+                for (int i = 0; i < chunk.ids.size(); i++) {
+                    ids.appendInt(recordOffset + chunk.ids.getInt(i));
+                }
+                recordOffset += chunk.records;
+            }
+
+            List<Callable<Column>> stitches = new ArrayList<>();
+            for (String key : keys) {
+                int rows = total;
+                stitches.add(() -> options.loads(key) ? stitch(chunks, key, storage) : new SkippedColumn(rows));
+            }
+            List<Column> stitched = ParallelTasks.invokeAll(stitches);
+
+            List<String> columns = new ArrayList<>();
+            columns.add("filtrID");
+            columns.addAll(keys);
+            Column[] vectors = new Column[keys.size() + 1];
+            vectors[0] = ids;
+            for (int j = 0; j < keys.size(); j++) {
+                vectors[j + 1] = stitched.get(j);
+            }
+            return DatasetLoader.newDataset(columns, vectors, storage);
+        }
+    }
+
+    /** JSON Lines from a character stream that can't be split, such as a decompressor. */
+    static Dataset read(Reader text, LoadOptions options) throws IOException {
+        try (JsonReader reader = new JsonReader(text)) {
+            ColumnStorage storage = options.storage();
+            IntColumn ids = new IntColumn(DatasetLoader.INITIAL_CAPACITY, storage);
+            JsonColumns fields = new JsonColumns(DatasetLoader.INITIAL_CAPACITY, storage, options.columns);
+            int record = 0;
+            while (reader.hasNext()) {
+                record++;
+                if (fields.addIf(reader.readObject(), options.where)) ids.appendInt(record);
+            }
+            if (record == 0) throw new IOException("Empty JSON Lines file.");
+
+            List<String> columns = new ArrayList<>();
+            columns.add("filtrID");
+            columns.addAll(fields.keys());
+            return DatasetLoader.newDataset(columns, DatasetLoader.buildVectors(ids, fields.builders()), storage);
+        }
+    }
+
+    /** Range boundaries, each just after a line break (or at either end of the file). */
+    private static long[] split(FileChannel channel, long size) throws IOException {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int ranges = (int) Math.max(1, Math.min(parallelism * 4L, size / MIN_RANGE_BYTES));
+        List<Callable<Long>> resyncs = new ArrayList<>();
+        for (int k = 1; k < ranges; k++) {
+            long cut = size * k / ranges;
+            resyncs.add(() -> lineEnd(channel, cut, size));
+        }
+        List<Long> starts = ParallelTasks.invokeAll(resyncs);
+
+        long[] bounds = new long[ranges + 1];
+        for (int k = 1; k < ranges; k++) {
+            bounds[k] = starts.get(k - 1);
+        }
+        bounds[ranges] = size;
+        return bounds;
+    }
+
+    /** Offset just past the first line break at or after {@code from}, or {@code end}. */
+    private static long lineEnd(FileChannel channel, long from, long end) throws IOException {
+        byte[] buffer = new byte[SCAN_BUFFER];
+        long position = from;
+        try (InputStream in = new RangeInputStream(channel, from, end)) {
+            int read;
+            while ((read = in.read(buffer, 0, buffer.length)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') return position + i + 1;
+                }
+                position += read;
+            }
+        }
+        return end;
+    }
+
+    private static Chunk parse(FileChannel channel, long from, long to, LoadOptions options) throws IOException {
+        Chunk chunk = new Chunk(options.columns);
+        try (JsonReader reader = new JsonReader(
+                new InputStreamReader(new RangeInputStream(channel, from, to), StandardCharsets.UTF_8))) {
+            try {
+                while (reader.hasNext()) {
+                    chunk.records++;
+                    if (chunk.fields.addIf(reader.readObject(), options.where)) chunk.ids.appendInt(chunk.records);
+                }
+            } catch (JsonReader.MalformedJsonException e) {
+                chunk.failure = e;
+            }
+            chunk.rows = chunk.fields.rows();
+            chunk.lineBreaks = reader.lineBreaks();
+        }
+        chunk.columns = new Column[chunk.fields.keys().size()];
+        ColumnBuilder[] builders = chunk.fields.builders();
+        for (int j = 0; j < builders.length; j++) {
+            if (builders[j] != null) chunk.columns[j] = builders[j].build();
+        }
+        return chunk;
+    }
+
+    /** Concatenates one key's values across all chunks, NULL where a chunk never saw it, then drops the pieces. */
+    private static Column stitch(List<Chunk> chunks, String key, ColumnStorage storage) {
+        Column[] parts = new Column[chunks.size()];
+        int[] sizes = new int[parts.length];
+        for (int k = 0; k < parts.length; k++) {
+            Chunk chunk = chunks.get(k);
+            int j = chunk.fields.position(key);
+            parts[k] = j < 0 ? null : chunk.columns[j];
+            sizes[k] = j < 0 ? chunk.rows : parts[k].size();
+        }
+        Column stitched = ColumnBuilder.concat(parts, sizes, storage);
+        for (Chunk chunk : chunks) {
+            int j = chunk.fields.position(key);
+            if (j >= 0) chunk.columns[j] = null;
+        }
+        return stitched;
+    }
+
+    /** Objects parsed from one byte range, numbered from 1 within the range. */
+    private static final class Chunk {
+        final JsonColumns fields;
+        final IntColumn ids = new IntColumn(1024);
+        Column[] columns;
+        int records;
+        int rows;
+        long lineBreaks;
+        JsonReader.MalformedJsonException failure;
+
+        Chunk(Set<String> projection) {
+            fields = new JsonColumns(1024, ColumnStorage.HEAP, projection);
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package filtr.dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pull parser for JSON text, read through a fixed-size character buffer so a
+ * large document is never held in memory whole. Values come back as String,
+ * Integer, Long, Double, Boolean, null, Map (an object, keys in document
+ * order) or List (an array).
+ */
+final class JsonReader implements Closeable {
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final Reader in;
+    private final char[] buffer = new char[CHUNK_SIZE];
+    private int position;
+    private int limit;
+    private long line = 1;
+    private boolean firstElement;
+    private final StringBuilder text = new StringBuilder();
+
+    JsonReader(Reader in) {
+        this.in = in;
+    }
+
+    /** Consumes the '[' that opens the top-level array. */
+    void beginArray() throws IOException {
+        if (skipWhitespace() != '[') throw error("Expected a JSON array of objects");
+        position++;
+        firstElement = true;
+    }
+
+    /** Whether the top-level array has another element; consumes the ',' or closing ']'. */
+    boolean nextInArray() throws IOException {
+        int c = skipWhitespace();
+        if (c == ']') {
+            position++;
+            return false;
+        }
+        if (!firstElement) {
+            if (c != ',') throw error("Expected ',' or ']'");
+            position++;
+        }
+        firstElement = false;
+        return true;
+    }
+
+    /** Whether anything but whitespace is left; for a stream of values such as JSON Lines. */
+    boolean hasNext() throws IOException {
+        return skipWhitespace() != -1;
+    }
+
+    /** Checks that only whitespace follows the top-level value. */
+    void endDocument() throws IOException {
+        if (skipWhitespace() != -1) throw error("Unexpected text after the end of the array");
+    }
+
+    /** Reads an object, failing if the next value is anything else. */
+    Map<String, Object> readObject() throws IOException {
+        if (skipWhitespace() != '{') throw error("Expected an object");
+        position++;
+        Map<String, Object> object = new LinkedHashMap<>();
+        if (skipWhitespace() == '}') {
+            position++;
+            return object;
+        }
+        while (true) {
+            if (skipWhitespace() != '"') throw error("Expected a quoted key");
+            String key = readString();
+            if (skipWhitespace() != ':') throw error("Expected ':' after key \"" + key + "\"");
+            position++;
+            object.put(key, readValue());
+
+            int c = skipWhitespace();
+            position++;
+            if (c == '}') return object;
+            if (c != ',') throw error("Expected ',' or '}'");
+        }
+    }
+
+    Object readValue() throws IOException {
+        int c = skipWhitespace();
+        switch (c) {
+            case '{':
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+                return readString();
+            case 't':
+                return literal("true", Boolean.TRUE);
+            case 'f':
+                return literal("false", Boolean.FALSE);
+            case 'n':
+                return literal("null", null);
+            case -1:
+                throw error("Unexpected end of input");
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return readNumber();
+                throw error("Unexpected character '" + (char) c + "'");
+        }
+    }
+
+    private List<Object> readArray() throws IOException {
+        position++;
+        List<Object> array = new ArrayList<>();
+        if (skipWhitespace() == ']') {
+            position++;
+            return array;
+        }
+        while (true) {
+            array.add(readValue());
+            int c = skipWhitespace();
+            position++;
+            if (c == ']') return array;
+            if (c != ',') throw error("Expected ',' or ']'");
+        }
+    }
+
+    private String readString() throws IOException {
+        position++; // opening quote
+        text.setLength(0);
+        while (true) {
+            int c = read();
+            if (c == -1) throw error("Unterminated string");
+            if (c == '"') return text.toString();
+            if (c != '\\') {
+                if (c == '\n') line++;
+                text.append((char) c);
+                continue;
+            }
+            int escape = read();
+            switch (escape) {
+                case '"', '\\', '/' -> text.append((char) escape);
+                case 'b' -> text.append('\b');
+                case 'f' -> text.append('\f');
+                case 'n' -> text.append('\n');
+                case 'r' -> text.append('\r');
+                case 't' -> text.append('\t');
+                case 'u' -> {
+                    int code = 0;
+                    for (int i = 0; i < 4; i++) {
+                        int digit = Character.digit(read(), 16);
+                        if (digit < 0) throw error("Bad \\u escape");
+                        code = code * 16 + digit;
+                    }
+                    text.append((char) code);
+                }
+                default -> throw error("Bad escape sequence");
+            }
+        }
+    }
+
+    /**
+     * -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)? as Integer or Long when
+     * integral and in range, otherwise Double.
+     */
+    private Object readNumber() throws IOException {
+        text.setLength(0);
+        int c;
+        while ((c = peek()) != -1 && (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9'))) {
+            text.append((char) c);
+            position++;
+        }
+
+        int i = 0;
+        int length = text.length();
+        if (text.charAt(i) == '-') i++;
+        int integerStart = i;
+        while (i < length && isDigit(text.charAt(i))) i++;
+        int integerDigits = i - integerStart;
+        if (integerDigits == 0 || (integerDigits > 1 && text.charAt(integerStart) == '0')) throw badNumber();
+        boolean integral = true;
+        if (i < length && text.charAt(i) == '.') {
+            integral = false;
+            int fractionStart = ++i;
+            while (i < length && isDigit(text.charAt(i))) i++;
+            if (i == fractionStart) throw badNumber();
+        }
+        if (i < length && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+            integral = false;
+            i++;
+            if (i < length && (text.charAt(i) == '-' || text.charAt(i) == '+')) i++;
+            int exponentStart = i;
+            while (i < length && isDigit(text.charAt(i))) i++;
+            if (i == exponentStart) throw badNumber();
+        }
+        if (i != length) throw badNumber();
+
+        String number = text.toString();
+        if (integral && integerDigits <= 18) {
+            long value = Long.parseLong(number);
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) return (int) value;
+            return value;
+        }
+        return Double.parseDouble(number);
+    }
+
+    private MalformedJsonException badNumber() {
+        return error("Malformed number '" + text + "'");
+    }
+
+    private Object literal(String word, Object value) throws IOException {
+        for (int i = 0; i < word.length(); i++) {
+            if (read() != word.charAt(i)) throw error("Unexpected literal, expected " + word);
+        }
+        return value;
+    }
+
+    /** Line breaks consumed so far. */
+    long lineBreaks() {
+        return line - 1;
+    }
+
+    private int skipWhitespace() throws IOException {
+        while (true) {
+            int c = peek();
+            if (c == ' ' || c == '\t' || c == '\r') {
+                position++;
+            } else if (c == '\n') {
+                line++;
+                position++;
+            } else {
+                return c;
+            }
+        }
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) return -1;
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        int c = peek();
+        if (c != -1) position++;
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) return false;
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private MalformedJsonException error(String message) {
+        return new MalformedJsonException(line, message);
+    }
+
+    /** A syntax error and the line it was found on. */
+    static final class MalformedJsonException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        final long line;
+        final String detail;
+
+        MalformedJsonException(long line, String detail) {
+            super("Malformed JSON at line " + line + ": " + detail + ".");
+            this.line = line;
+            this.detail = detail;
+        }
+
+        /** The same error, for a reader that started after {@code lines} earlier lines. */
+        MalformedJsonException shifted(long lines) {
+            return new MalformedJsonException(line + lines, detail);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
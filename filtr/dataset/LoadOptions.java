@@ -0,0 +1,35 @@
+package filtr.dataset;
+
+import java.util.Set;
+
+/** Per-import settings, taken from the modifiers after {@code import "..." as name}. */
+public class LoadOptions {
+    /** Keep column values in a memory-mapped arena instead of on the Java heap. */
+    public boolean offHeap;
+    /** Parse CSV byte ranges on all cores and stitch them together in order. */
+    public boolean parallel;
+    /** Tokenize CSV straight from a memory-mapped file instead of decoding it to text first. */
+    public boolean mapped;
+    /** Columns the script reads; any others are skipped while parsing. null loads every column. */
+    public Set<String> columns;
+    /** Condition rows must meet to be kept at all, or null to keep every row. */
+    public RowFilter where;
+    /** How many files a glob import loads at once; 0 uses one per core. */
+    public int threads;
+    /** Keep reading a growing CSV file: importing it again parses only the records appended since. */
+    public boolean follow;
+
+    public static LoadOptions defaults() {
+        return new LoadOptions();
+    }
+
+    /** Whether a column of the file should be parsed. */
+    boolean loads(String column) {
+        return columns == null || columns.contains(column);
+    }
+
+    /** Storage for the imported vectors, or the heap when no arena is needed. */
+    ColumnStorage storage() throws java.io.IOException {
+        return offHeap ? new OffHeapArena() : ColumnStorage.HEAP;
+    }
+}
@@ -0,0 +1,443 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CSV tokenizer over a memory-mapped byte range. Records are split in place,
+ * keeping only the start and end offset of each field, and a cell becomes a
+ * value straight from its bytes: numbers go into primitive vectors without an
+ * intermediate String, and strings are decoded at most once per distinct
+ * value, or not at all when the column keeps raw UTF-8.
+ *
+ * Quoting and line handling match {@link CsvReader}.
+ */
+final class MappedCsvReader {
+    private static final long WINDOW = 1L << 30;
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final FileChannel channel;
+    private final long end;
+    private ByteBuffer window;
+    private long windowBase;
+    private int position;
+
+    // Current record: field offsets into the window, and whether the field
+    // holds quotes or a stray CR and so needs unescaping first
+    private int fields;
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private boolean[] escaped = new boolean[16];
+    private long line = 1;
+    private long recordLine;
+    private boolean sawQuotes;
+
+    // Current cell, set by cell(): a slice of the window or of the scratch buffer
+    private ByteBuffer cellBuffer;
+    private int cellOffset;
+    private int cellLength;
+    private byte[] scratch = new byte[256];
+
+    MappedCsvReader(FileChannel channel, long from, long to) throws IOException {
+        this.channel = channel;
+        this.end = to;
+        map(from);
+    }
+
+    private void map(long from) throws IOException {
+        windowBase = from;
+        window = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(end - from, WINDOW));
+        position = 0;
+    }
+
+    /** Tokenizes the next record; false once the range is exhausted. */
+    boolean next() throws IOException {
+        while (true) {
+            int result = tokenize();
+            if (result >= 0) return result == 1;
+
+            // The record runs past the mapped window: map again from its start
+            long recordStart = windowBase + position;
+            if (recordStart == windowBase) {
+                throw new IOException("CSV record at line " + line + " is larger than " + WINDOW + " bytes.");
+            }
+            map(recordStart);
+        }
+    }
+
+    /** 1 when a record was read, 0 at the end of the range, -1 when the window must move. */
+    private int tokenize() {
+        ByteBuffer buffer = window;
+        int limit = buffer.limit();
+        boolean last = windowBase + limit >= end;
+        int p = position;
+        if (p >= limit) return last ? 0 : -1;
+
+        int count = 0;
+        long breaks = 0;
+        boolean inQuotes = false;
+        boolean special = false;
+        int start = p;
+        while (true) {
+            if (p == limit) {
+                if (!last) return -1;
+                count = addField(count, start, trimCarriageReturn(buffer, start, p, inQuotes), special);
+                break;
+            }
+            byte b = buffer.get(p);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+                special = true;
+                sawQuotes = true;
+            } else if (b == '\n') {
+                breaks++;
+                if (!inQuotes) {
+                    count = addField(count, start, trimCarriageReturn(buffer, start, p, inQuotes), special);
+                    p++;
+                    break;
+                }
+            } else if (b == ',' && !inQuotes) {
+                count = addField(count, start, p, special);
+                start = p + 1;
+                special = false;
+            } else if (b == '\r' && !(p + 1 < limit && buffer.get(p + 1) == '\n')) {
+                special = true;
+            }
+            p++;
+        }
+
+        fields = count;
+        recordLine = line;
+        line += breaks;
+        position = p;
+        return 1;
+    }
+
+    /** Drops the CR of a CRLF line ending, which sits outside any quotes. */
+    private static int trimCarriageReturn(ByteBuffer buffer, int start, int end, boolean inQuotes) {
+        return !inQuotes && end > start && buffer.get(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    private int addField(int index, int start, int end, boolean special) {
+        if (index == starts.length) {
+            starts = Arrays.copyOf(starts, index * 2);
+            ends = Arrays.copyOf(ends, index * 2);
+            escaped = Arrays.copyOf(escaped, index * 2);
+        }
+        starts[index] = start;
+        ends[index] = end;
+        escaped[index] = special;
+        return index + 1;
+    }
+
+    int fieldCount() {
+        return fields;
+    }
+
+    /** 1-based line on which the current record started. */
+    long recordLine() {
+        return recordLine;
+    }
+
+    /** Whether any record read so far held a quote character. */
+    boolean sawQuotes() {
+        return sawQuotes;
+    }
+
+    /** Line breaks consumed so far, including those inside quoted fields. */
+    long lineBreaks() {
+        return line - 1;
+    }
+
+    /** Whether the current record is an empty or whitespace-only line. */
+    boolean blank() {
+        if (fields != 1) return false;
+        cell(0, true);
+        return cellLength == 0;
+    }
+
+    /** Raw (untrimmed) text of a field, decoded. */
+    String field(int index) {
+        cell(index, false);
+        return decode();
+    }
+
+    /** The record as it would be written back, for error messages. */
+    String text() {
+        List<String> values = new ArrayList<>(fields);
+        for (int j = 0; j < fields; j++) {
+            values.add(field(j));
+        }
+        return String.join(",", values).trim();
+    }
+
+    /** A field's typed value, as {@link #appendTo} would store it. */
+    Object value(int index) {
+        return TypeInference.infer(DatasetLoader.cleanCell(field(index)));
+    }
+
+    /**
+     * Appends one cell to a column with the same NULL convention and type
+     * inference as {@link TypeInference}, reading the bytes directly.
+     */
+    void appendTo(int index, ColumnBuilder builder) {
+        cell(index, true);
+        ByteBuffer b = cellBuffer;
+        int from = cellOffset;
+        int to = cellOffset + cellLength;
+        if (cellLength == 0 || isNullWord(b, from, cellLength)) {
+            builder.append(null);
+            return;
+        }
+
+        byte first = b.get(from);
+        if (isDigit(first) || first == '-' || first == '+' || first == '.') {
+            long integer = parseInt(b, from, to);
+            if (integer != Long.MIN_VALUE) {
+                builder.appendInt((int) integer);
+                return;
+            }
+            double decimal = parseDecimal(b, from, to);
+            if (!Double.isNaN(decimal)) {
+                builder.appendDouble(decimal);
+                return;
+            }
+            if (cellLength == 10 && isDateShaped(b, from)) {
+                LocalDate date = toDate(b, from);
+                if (date != null) {
+                    builder.append(date);
+                } else {
+                    builder.appendUtf8(b, from, cellLength);
+                }
+                return;
+            }
+        } else if (isLetter(first)) {
+            if (cellLength == 4 && equalsIgnoreCase(b, from, "true")) {
+                builder.append(Boolean.TRUE);
+                return;
+            }
+            if (cellLength == 5 && equalsIgnoreCase(b, from, "false")) {
+                builder.append(Boolean.FALSE);
+                return;
+            }
+            // NaN and Infinity are left to the general parser
+            if (first != 'N' && first != 'I') {
+                builder.appendUtf8(b, from, cellLength);
+                return;
+            }
+        } else if (first >= 0) {
+            // Other ASCII punctuation can't start a number, boolean or date
+            builder.appendUtf8(b, from, cellLength);
+            return;
+        }
+
+        // Anything unusual takes the String path, which accepts every form Java's parsers do
+        builder.append(TypeInference.infer(decode()));
+    }
+
+    /** Points the cell fields at the unescaped, optionally trimmed content of a field. */
+    private void cell(int index, boolean trim) {
+        int from = starts[index];
+        int to = ends[index];
+        ByteBuffer buffer = window;
+        if (escaped[index]) {
+            to = unescape(from, to);
+            from = 0;
+            buffer = ByteBuffer.wrap(scratch);
+        }
+        if (trim) {
+            while (from < to && (buffer.get(from) & 0xff) <= ' ') from++;
+            while (to > from && (buffer.get(to - 1) & 0xff) <= ' ') to--;
+        }
+        cellBuffer = buffer;
+        cellOffset = from;
+        cellLength = to - from;
+    }
+
+    /** Copies a field into the scratch buffer the way {@link CsvReader} reads it; returns its length. */
+    private int unescape(int from, int to) {
+        if (scratch.length < to - from) scratch = new byte[Math.max(to - from, scratch.length * 2)];
+        int length = 0;
+        boolean inQuotes = false;
+        boolean quoteInQuotes = false;
+        for (int i = from; i < to; i++) {
+            byte b = window.get(i);
+            if (quoteInQuotes) {
+                quoteInQuotes = false;
+                if (b == '"') {
+                    scratch[length++] = b;
+                    continue;
+                }
+                inQuotes = false;
+            }
+            if (inQuotes) {
+                if (b == '"') {
+                    quoteInQuotes = true;
+                } else {
+                    scratch[length++] = b;
+                }
+            } else if (b == '"') {
+                inQuotes = true;
+            } else if (b != '\r') {
+                scratch[length++] = b;
+            }
+        }
+        return length;
+    }
+
+    private String decode() {
+        byte[] bytes = new byte[cellLength];
+        cellBuffer.get(cellOffset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isLetter(byte b) {
+        return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z');
+    }
+
+    private static boolean isNullWord(ByteBuffer b, int from, int length) {
+        return length == 4 && equalsIgnoreCase(b, from, "null");
+    }
+
+    private static boolean equalsIgnoreCase(ByteBuffer b, int from, String lower) {
+        for (int i = 0; i < lower.length(); i++) {
+            if ((b.get(from + i) | 0x20) != lower.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /** [+-]digits within int range, as Integer.parseInt reads it; Long.MIN_VALUE otherwise. */
+    private static long parseInt(ByteBuffer b, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        byte sign = b.get(i);
+        if (sign == '-' || sign == '+') {
+            negative = sign == '-';
+            i++;
+        }
+        if (i == to || to - i > 10) return Long.MIN_VALUE;
+        long value = 0;
+        for (; i < to; i++) {
+            byte digit = b.get(i);
+            if (!isDigit(digit)) return Long.MIN_VALUE;
+            value = value * 10 + (digit - '0');
+        }
+        if (negative) value = -value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? Long.MIN_VALUE : value;
+    }
+
+    /**
+     * Plain decimal notation, [+-](digits[.digits]|.digits)[e[+-]digits], as
+     * Double.parseDouble reads it; NaN when the cell has another shape.
+     * Up to 15 significant digits and a small exponent are converted exactly
+     * with one multiply or divide; longer values defer to the JDK.
+     */
+    private static double parseDecimal(ByteBuffer b, int from, int to) {
+        int i = from;
+        boolean negative = false;
+        byte sign = b.get(i);
+        if (sign == '-' || sign == '+') {
+            negative = sign == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int significant = 0;
+        int scale = 0;
+        boolean digits = false;
+        for (; i < to && isDigit(b.get(i)); i++) {
+            digits = true;
+            int digit = b.get(i) - '0';
+            if (mantissa == 0 && digit == 0) continue;
+            if (significant < 18) {
+                mantissa = mantissa * 10 + digit;
+            } else {
+                scale++;
+            }
+            significant++;
+        }
+        if (i < to && b.get(i) == '.') {
+            for (i++; i < to && isDigit(b.get(i)); i++) {
+                digits = true;
+                int digit = b.get(i) - '0';
+                if (mantissa == 0 && digit == 0) {
+                    scale--;
+                    continue;
+                }
+                if (significant < 18) {
+                    mantissa = mantissa * 10 + digit;
+                    scale--;
+                }
+                significant++;
+            }
+        }
+        if (!digits) return Double.NaN;
+
+        if (i < to && (b.get(i) == 'e' || b.get(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < to && (b.get(i) == '-' || b.get(i) == '+')) {
+                negativeExponent = b.get(i) == '-';
+                i++;
+            }
+            if (i == to) return Double.NaN;
+            int exponent = 0;
+            for (; i < to && isDigit(b.get(i)); i++) {
+                if (exponent < 100_000) exponent = exponent * 10 + (b.get(i) - '0');
+            }
+            scale += negativeExponent ? -exponent : exponent;
+        }
+        if (i != to) return Double.NaN;
+
+        double value;
+        if (mantissa == 0) {
+            value = 0;
+        } else if (significant <= 15 && Math.abs(scale) <= 22) {
+            value = scale >= 0 ? mantissa * POWERS_OF_TEN[scale] : mantissa / POWERS_OF_TEN[-scale];
+        } else {
+            byte[] ascii = new byte[to - from];
+            b.get(from, ascii);
+            return Double.parseDouble(new String(ascii, StandardCharsets.US_ASCII));
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean isDateShaped(ByteBuffer b, int from) {
+        for (int i = 0; i < 10; i++) {
+            byte c = b.get(from + i);
+            if (i == 4 || i == 7 ? c != '-' : !isDigit(c)) return false;
+        }
+        return true;
+    }
+
+    /** yyyy-MM-dd as LocalDate.parse reads it, or null for an impossible date. */
+    private static LocalDate toDate(ByteBuffer b, int from) {
+        int year = digits(b, from, 4);
+        int month = digits(b, from + 5, 2);
+        int day = digits(b, from + 8, 2);
+        if (month < 1 || month > 12 || day < 1) return null;
+        if (day > java.time.Month.of(month).length(java.time.Year.isLeap(year))) return null;
+        return LocalDate.of(year, month, day);
+    }
+
+    private static int digits(ByteBuffer b, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            value = value * 10 + (b.get(i) - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,70 @@
+package filtr.dataset;
+
+import java.util.Arrays;
+
+/** Column of boxed values; holds anything the loader or a script produces. */
+public class ObjectColumn extends Column {
+    private Object[] values;
+    private int size;
+
+    public ObjectColumn() {
+        this(16);
+    }
+
+    public ObjectColumn(int capacity) {
+        this.values = new Object[Math.max(capacity, 1)];
+        this.size = 0;
+    }
+
+    ObjectColumn(Object[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Object get(int row) {
+        return values[row];
+    }
+
+    @Override
+    public void set(int row, Object value) {
+        values[row] = value;
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return true;
+    }
+
+    @Override
+    public Column widen() {
+        return this;
+    }
+
+    @Override
+    public void append(Object value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length + (values.length >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    @Override
+    public Column copy() {
+        return new ObjectColumn(Arrays.copyOf(values, Math.max(size, 1)), size);
+    }
+
+    @Override
+    public Column select(int[] rows) {
+        Object[] selected = new Object[Math.max(rows.length, 1)];
+        for (int i = 0; i < rows.length; i++) {
+            selected[i] = values[rows[i]];
+        }
+        return new ObjectColumn(selected, rows.length);
+    }
+}
@@ -0,0 +1,185 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Column storage outside the Java heap: every allocation is a region of a
+ * memory-mapped temporary file, so a dataset can be larger than the heap and
+ * its values are never scanned by the garbage collector. Regions given back
+ * with {@link #free} (the old buffer of a growing vector) are reused by later
+ * allocations, so growing a column does not leave dead copies in the file.
+ *
+ * The arena is reference counted by the datasets bound to variables. When the
+ * last binding goes away the file is closed and deleted.
+ */
+public final class OffHeapArena implements ColumnStorage {
+    private final Path file;
+    private final FileChannel channel;
+    private final Map<Buffer, long[]> regions = new IdentityHashMap<>(); // live buffer -> offset, length
+    private final TreeMap<Long, Long> holes = new TreeMap<>();            // freed offset -> length
+    private static final byte[] ZEROS = new byte[64 * 1024];
+    private long position;
+    private int references;
+    private boolean closed;
+
+    public OffHeapArena() throws IOException {
+        this.file = Files.createTempFile("filtr", ".offheap");
+        file.toFile().deleteOnExit();
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    /** Maps a fresh zeroed region, reusing freed space before growing the backing file. */
+    public ByteBuffer allocate(long bytes) {
+        return map(bytes, region -> region);
+    }
+
+    @Override
+    public IntBuffer ints(int capacity) {
+        return map((long) capacity * Integer.BYTES, ByteBuffer::asIntBuffer);
+    }
+
+    @Override
+    public LongBuffer longs(int capacity) {
+        return map((long) capacity * Long.BYTES, ByteBuffer::asLongBuffer);
+    }
+
+    @Override
+    public DoubleBuffer doubles(int capacity) {
+        return map((long) capacity * Double.BYTES, ByteBuffer::asDoubleBuffer);
+    }
+
+    @Override
+    public ByteBuffer bytes(int capacity) {
+        return allocate(capacity);
+    }
+
+    private synchronized <B extends Buffer> B map(long bytes, Function<ByteBuffer, B> view) {
+        if (closed) {
+            throw new IllegalStateException("Off-heap storage has already been released.");
+        }
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Off-heap region too large: " + bytes + " bytes.");
+        }
+        long length = Math.max(bytes, 1);
+        long offset = reuse(length);
+        boolean reused = offset >= 0;
+        if (!reused) {
+            offset = position;
+            position += length;
+        }
+        try {
+            ByteBuffer region = channel.map(FileChannel.MapMode.READ_WRITE, offset, length).order(ByteOrder.LITTLE_ENDIAN);
+            if (reused) {
+                for (int at = 0; at < length; at += ZEROS.length) {
+                    region.put(at, ZEROS, 0, (int) Math.min(ZEROS.length, length - at));
+                }
+            }
+            B buffer = view.apply(region);
+            regions.put(buffer, new long[] {offset, length});
+            return buffer;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map off-heap storage.", e);
+        }
+    }
+
+    /** Takes the first freed range big enough for the region, or returns -1. */
+    private long reuse(long length) {
+        for (Map.Entry<Long, Long> hole : holes.entrySet()) {
+            long offset = hole.getKey();
+            long size = hole.getValue();
+            if (size >= length) {
+                holes.remove(offset);
+                if (size > length) holes.put(offset + length, size - length);
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Gives a buffer's region back for reuse; the caller must not read it
+     * again. Buffers this arena did not hand out are ignored. Neighbouring
+     * freed ranges are merged, and a range at the end of the file moves the
+     * end back.
+     */
+    @Override
+    public synchronized void free(Buffer buffer) {
+        long[] region = regions.remove(buffer);
+        if (region == null || closed) return;
+        long offset = region[0];
+        long length = region[1];
+        Map.Entry<Long, Long> before = holes.floorEntry(offset);
+        if (before != null && before.getKey() + before.getValue() == offset) {
+            holes.remove(before.getKey());
+            offset = before.getKey();
+            length += before.getValue();
+        }
+        Long after = holes.remove(offset + length);
+        if (after != null) length += after;
+        if (offset + length == position) {
+            position = offset;
+        } else {
+            holes.put(offset, length);
+        }
+    }
+
+    /** Bytes of the backing file that regions span, freed ranges awaiting reuse included. */
+    public synchronized long allocatedBytes() {
+        return position;
+    }
+
+    public synchronized void retain() {
+        references++;
+    }
+
+    /** Drops one reference, freeing the backing file when none remain. */
+    public synchronized void release() {
+        if (--references <= 0) close();
+    }
+
+    /**
+     * Drops one reference without freeing the file, for a binding whose
+     * dataset is being returned from a function: the caller binds it next.
+     */
+    public synchronized void handOff() {
+        references--;
+    }
+
+    /** Frees the backing file if nothing holds a reference, as when a returned dataset was never bound. */
+    public synchronized void releaseUnused() {
+        if (references <= 0) close();
+    }
+
+    /**
+     * Deletes the backing file and forgets every region. The mappings
+     * themselves go when the buffers do: the caller drops the datasets that
+     * held them, so nothing keeps the pages mapped once the collector runs.
+     */
+    private void close() {
+        if (closed) return;
+        closed = true;
+        regions.clear();
+        holes.clear();
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Failed to delete off-heap storage " + file + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Parallel CSV import: the file is cut into byte ranges that are parsed and
+ * type-inferred concurrently on the common fork/join pool, then stitched back
+ * together in file order.
+ *
+ * Each cut is moved forward to the next record boundary. Whether a cut falls
+ * inside a quoted field follows from the parity of the quotes before it,
+ * counted per range in a parallel pre-pass. {@code '"'} and {@code '\n'} are
+ * single bytes in UTF-8, so all of this works on the raw bytes. With the
+ * {@code mapped} option each range is tokenized by a {@link MappedCsvReader}.
+ */
+final class ParallelCsvLoader {
+    private static final long MIN_RANGE_BYTES = 1 << 20;
+    private static final int SCAN_BUFFER = 1 << 16;
+
+    private ParallelCsvLoader() {
+    }
+
+    static Dataset load(Path path, LoadOptions options, SchemaSidecar schema) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            // Header row, read on its own so every range knows the width
+            long headerEnd = recordEnd(channel, 0, size, false);
+            List<String> header = new ArrayList<>();
+            long headerBreaks;
+            try (CsvReader reader = reader(channel, 0, headerEnd)) {
+                if (!reader.next(header)) throw new IOException("Empty CSV file.");
+                headerBreaks = reader.lineBreaks();
+            }
+            List<String> columns = new ArrayList<>();
+            columns.add("filtrID");
+            for (String name : header) {
+                columns.add(name.trim());
+            }
+            int width = header.size();
+            schema.bind(columns);
+
+            boolean[] loaded = new boolean[width];
+            for (int j = 0; j < width; j++) {
+                loaded[j] = options.loads(columns.get(j + 1));
+            }
+
+            RowFilter where = options.where;
+            int key = where == null ? -1 : where.position(columns);
+
+            long[] bounds = split(channel, headerEnd, size, schema);
+            List<Callable<Chunk>> parses = new ArrayList<>();
+            for (int k = 0; k + 1 < bounds.length; k++) {
+                long from = bounds[k];
+                long to = bounds[k + 1];
+                parses.add(() -> options.mapped ? parseMapped(channel, from, to, loaded, where, key) : parse(channel, from, to, loaded, where, key, schema));
+            }
+            List<Chunk> chunks = ParallelTasks.invokeAll(parses);
+
+            // Stitch: filtrID and line numbers continue from the ranges before
+            int total = 0;
+            for (Chunk chunk : chunks) {
+                total += chunk.ids.size();
+            }
+            ColumnStorage storage = options.storage();
+            IntColumn ids = new IntColumn(total, storage);
+            int recordOffset = 0;
+            long lineOffset = 1 + headerBreaks;
+            for (Chunk chunk : chunks) {
+                for (Malformed bad : chunk.malformed) {
+                    System.err.println("Skipping malformed line " + (lineOffset + bad.line() - 1) + ": " + bad.text());
+                }
+                for (int i = 0; i < chunk.ids.size(); i++) {
+                    ids.appendInt(recordOffset + chunk.ids.getInt(i));
+                }
+                recordOffset += chunk.records;
+                lineOffset += chunk.lineBreaks;
+            }
+
+            List<Callable<Column>> stitches = new ArrayList<>();
+            for (int j = 0; j < width; j++) {
+                int column = j;
+                int rows = total;
+                stitches.add(() -> loaded[column] ? stitch(chunks, column, storage) : new SkippedColumn(rows));
+            }
+            List<Column> stitched = ParallelTasks.invokeAll(stitches);
+
+            Column[] vectors = new Column[width + 1];
+            vectors[0] = ids;
+            for (int j = 0; j < width; j++) {
+                vectors[j + 1] = stitched.get(j);
+            }
+            schema.learn(columns, vectors);
+            return DatasetLoader.newDataset(columns, vectors, storage);
+        }
+    }
+
+    /** Range boundaries in [start, end), each moved to the start of a record. */
+    private static long[] split(FileChannel channel, long start, long end, SchemaSidecar schema) throws IOException {
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        int ranges = (int) Math.max(1, Math.min(parallelism * 4L, (end - start) / MIN_RANGE_BYTES));
+        long[] cuts = new long[ranges + 1];
+        for (int k = 0; k <= ranges; k++) {
+            cuts[k] = start + (end - start) * k / ranges;
+        }
+
+        // Pre-pass: quotes in every range, unless the sidecar says the file has none
+        long[] quotes = new long[ranges];
+        if (schema.quoted()) {
+            List<Callable<Long>> counts = new ArrayList<>();
+            for (int k = 0; k < ranges; k++) {
+                long from = cuts[k];
+                long to = cuts[k + 1];
+                counts.add(() -> countQuotes(channel, from, to));
+            }
+            List<Long> counted = ParallelTasks.invokeAll(counts);
+            for (int k = 0; k < ranges; k++) {
+                quotes[k] = counted.get(k);
+            }
+            schema.sawQuotes(Arrays.stream(quotes).sum() > 0);
+        }
+
+        // Prefix parity gives the quote state at each cut; resync from there
+        List<Callable<Long>> resyncs = new ArrayList<>();
+        boolean inQuotes = false;
+        for (int k = 1; k < ranges; k++) {
+            inQuotes ^= (quotes[k - 1] & 1) != 0;
+            long from = cuts[k];
+            boolean quoted = inQuotes;
+            resyncs.add(() -> recordEnd(channel, from, end, quoted));
+        }
+        List<Long> starts = ParallelTasks.invokeAll(resyncs);
+
+        long[] bounds = new long[ranges + 1];
+        bounds[0] = start;
+        for (int k = 1; k < ranges; k++) {
+            bounds[k] = starts.get(k - 1);
+        }
+        bounds[ranges] = end;
+        return bounds;
+    }
+
+    private static long countQuotes(FileChannel channel, long from, long to) throws IOException {
+        long count = 0;
+        byte[] buffer = new byte[SCAN_BUFFER];
+        try (InputStream in = new RangeInputStream(channel, from, to)) {
+            int read;
+            while ((read = in.read(buffer, 0, buffer.length)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '"') count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Offset just past the first unquoted newline at or after {@code from}, or {@code end}. */
+    private static long recordEnd(FileChannel channel, long from, long end, boolean inQuotes) throws IOException {
+        byte[] buffer = new byte[SCAN_BUFFER];
+        long position = from;
+        try (InputStream in = new RangeInputStream(channel, from, end)) {
+            int read;
+            while ((read = in.read(buffer, 0, buffer.length)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '"') {
+                        inQuotes = !inQuotes;
+                    } else if (buffer[i] == '\n' && !inQuotes) {
+                        return position + i + 1;
+                    }
+                }
+                position += read;
+            }
+        }
+        return end;
+    }
+
+    private static Chunk parse(FileChannel channel, long from, long to, boolean[] loaded, RowFilter where, int key, SchemaSidecar schema) throws IOException {
+        int width = loaded.length;
+        Chunk chunk = new Chunk(loaded);
+        for (int j = 0; j < width; j++) {
+            if (loaded[j]) chunk.inference[j] = schema.inference(j);
+        }
+        try (CsvReader reader = reader(channel, from, to)) {
+            List<String> fields = new ArrayList<>();
+            while (reader.next(fields)) {
+                chunk.records++;
+                if (fields.size() == 1 && fields.get(0).isBlank()) continue;
+
+                if (fields.size() != width) {
+                    chunk.malformed.add(new Malformed(reader.recordLine(), String.join(",", fields).trim()));
+                    continue;
+                }
+
+                Object keyCell = null;
+                if (key >= 0) {
+                    keyCell = chunk.inference[key].inferNext(DatasetLoader.cleanCell(fields.get(key)));
+                    if (!where.accepts(keyCell)) continue;
+                }
+
+                chunk.ids.appendInt(chunk.records);
+                for (int j = 0; j < width; j++) {
+                    if (j == key) chunk.builders[j].append(keyCell);
+                    else if (loaded[j]) chunk.builders[j].append(chunk.inference[j].inferNext(DatasetLoader.cleanCell(fields.get(j))));
+                }
+            }
+            chunk.lineBreaks = reader.lineBreaks();
+        }
+        return chunk.build();
+    }
+
+    private static Chunk parseMapped(FileChannel channel, long from, long to, boolean[] loaded, RowFilter where, int key) throws IOException {
+        int width = loaded.length;
+        Chunk chunk = new Chunk(loaded);
+        MappedCsvReader reader = new MappedCsvReader(channel, from, to);
+        while (reader.next()) {
+            chunk.records++;
+            if (reader.blank()) continue;
+
+            if (reader.fieldCount() != width) {
+                chunk.malformed.add(new Malformed(reader.recordLine(), reader.text()));
+                continue;
+            }
+            if (key >= 0 && !where.accepts(reader.value(key))) continue;
+
+            chunk.ids.appendInt(chunk.records);
+            for (int j = 0; j < width; j++) {
+                if (loaded[j]) reader.appendTo(j, chunk.builders[j]);
+            }
+        }
+        chunk.lineBreaks = reader.lineBreaks();
+        return chunk.build();
+    }
+
+    /** Concatenates one column across all chunks, then drops the pieces. */
+    private static Column stitch(List<Chunk> chunks, int column, ColumnStorage storage) {
+        Column[] parts = new Column[chunks.size()];
+        int[] sizes = new int[parts.length];
+        for (int k = 0; k < parts.length; k++) {
+            parts[k] = chunks.get(k).columns[column];
+            sizes[k] = parts[k].size();
+        }
+        Column stitched = ColumnBuilder.concat(parts, sizes, storage);
+        for (Chunk chunk : chunks) {
+            chunk.columns[column] = null;
+        }
+        return stitched;
+    }
+
+    private static CsvReader reader(FileChannel channel, long from, long to) {
+        return new CsvReader(new InputStreamReader(new RangeInputStream(channel, from, to), StandardCharsets.UTF_8));
+    }
+
+    /** Rows parsed from one byte range, numbered from 1 within the range. */
+    private static final class Chunk {
+        final ColumnBuilder[] builders;
+        final TypeInference[] inference;
+        final Column[] columns;
+        final IntColumn ids = new IntColumn(1024);
+        final List<Malformed> malformed = new ArrayList<>();
+        int records;
+        long lineBreaks;
+
+        Chunk(boolean[] loaded) {
+            int width = loaded.length;
+            builders = new ColumnBuilder[width];
+            inference = new TypeInference[width];
+            columns = new Column[width];
+            for (int j = 0; j < width; j++) {
+                if (!loaded[j]) continue;
+                builders[j] = new ColumnBuilder(1024);
+                inference[j] = new TypeInference();
+            }
+        }
+
+        Chunk build() {
+            for (int j = 0; j < builders.length; j++) {
+                if (builders[j] != null) columns[j] = builders[j].build();
+                builders[j] = null;
+            }
+            return this;
+        }
+    }
+
+    private record Malformed(long line, String text) {
+    }
+}
@@ -0,0 +1,53 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/** Runs import and export work on a pool of threads, surfacing failures as the loaders do. */
+final class ParallelTasks {
+
+    private ParallelTasks() {
+    }
+
+    /** Runs every task and returns their results in order; the first failure is rethrown. */
+    static <T> List<T> invokeAll(List<Callable<T>> tasks) throws IOException {
+        return invokeAll(tasks, ForkJoinPool.commonPool());
+    }
+
+    /** As {@link #invokeAll(List)}, with at most {@code parallelism} tasks running at once. */
+    static <T> List<T> invokeAll(List<Callable<T>> tasks, int parallelism) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism);
+        try {
+            return invokeAll(tasks, pool);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static <T> List<T> invokeAll(List<Callable<T>> tasks, ExecutorService pool) throws IOException {
+        List<T> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<T> future : pool.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException io) throw io;
+            if (cause instanceof UncheckedIOException io) throw io.getCause();
+            if (cause instanceof RuntimeException runtime) throw runtime;
+            throw new IOException(cause);
+        }
+        return results;
+    }
+}
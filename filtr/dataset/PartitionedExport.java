@@ -0,0 +1,186 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Exports marked {@code partitioned by col} or {@code split into N files},
+ * which write a directory of part files instead of one file:
+ *
+ *   out/filtrsales/region=East/part-00000.csv
+ *   out/filtrsales/region=West/part-00000.csv
+ *
+ * Each part is formatted and written on its own task, through the same
+ * writers as a single-file export. File names depend only on the data. A
+ * partition directory is named {@code column=value}, with the value as a CSV
+ * cell shows it. Characters a path might not hold are %-escaped, and NULL becomes
+ * {@code __HIVE_DEFAULT_PARTITION__}, as Hive-style readers expect. Split
+ * files are numbered from part-00000 and each holds an even, contiguous share
+ * of the rows, in order. Every part keeps every column, the partition column
+ * included.
+ *
+ * Part files of the same format that an earlier export left where this one
+ * writes are removed first, so a reader of the directory never picks up a
+ * stale one. That is the column's partition directories when partitioned,
+ * or the directory itself when only split. Other formats, directories
+ * partitioned by another column, and any other files are left alone.
+ */
+final class PartitionedExport {
+    private static final String NULL_PARTITION = "__HIVE_DEFAULT_PARTITION__";
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /** A file to write and the dataset's rows it holds. */
+    private record Part(Path file, int[] rows) {
+    }
+
+    private PartitionedExport() {
+    }
+
+    /** Writes the dataset as part files under {@code directory}; {@code format} is already checked. */
+    static void export(Dataset dataset, Path directory, String format, ExportOptions options) throws IOException {
+        String suffix = "." + format + (options.gzip ? ".gz" : "");
+        List<Part> parts = plan(dataset, directory, suffix, options);
+        System.out.println("Exporting dataset to: " + directory + " (" + parts.size() + " files)");
+
+        clear(directory, suffix, options.partitionBy);
+        Files.createDirectories(directory);
+        Set<Path> created = new HashSet<>();
+        List<Callable<Void>> writes = new ArrayList<>();
+        for (Part part : parts) {
+            if (created.add(part.file.getParent())) Files.createDirectories(part.file.getParent());
+            writes.add(() -> {
+                dataset.view(part.rows).writeFile(part.file, format, options);
+                return null;
+            });
+        }
+        if (writes.isEmpty()) return;
+        ParallelTasks.invokeAll(writes, Math.min(Runtime.getRuntime().availableProcessors(), writes.size()));
+    }
+
+    /** Every file to write, partition by partition. */
+    private static List<Part> plan(Dataset dataset, Path directory, String suffix, ExportOptions options) {
+        int split = Math.max(1, options.parts);
+        List<Part> parts = new ArrayList<>();
+        for (Map.Entry<String, int[]> partition : partitions(dataset, options.partitionBy).entrySet()) {
+            Path base = partition.getKey().isEmpty() ? directory : directory.resolve(partition.getKey());
+            int[] rows = partition.getValue();
+            for (int k = 0; k < split; k++) {
+                int from = (int) ((long) rows.length * k / split);
+                int to = (int) ((long) rows.length * (k + 1) / split);
+                parts.add(new Part(base.resolve(String.format("part-%05d%s", k, suffix)), Arrays.copyOfRange(rows, from, to)));
+            }
+        }
+        return parts;
+    }
+
+    /**
+     * The rows of each partition in order, keyed by directory name. Values
+     * are grouped by the name they are written as, so a mixed column's 1 and
+     * "1" share a directory. Without a partition column, every row is in one
+     * partition with an empty name.
+     */
+    private static Map<String, int[]> partitions(Dataset dataset, String column) {
+        Map<String, int[]> partitions = new TreeMap<>();
+        if (column == null) {
+            int[] rows = new int[dataset.size()];
+            Arrays.setAll(rows, i -> i);
+            partitions.put("", rows);
+            return partitions;
+        }
+
+        List<Object> values = dataset.getColumnValues(column);
+        Map<Object, String> names = new HashMap<>();
+        Map<String, Rows> rows = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            String name = names.computeIfAbsent(values.get(i), value -> directoryName(column, value));
+            rows.computeIfAbsent(name, n -> new Rows()).add(i);
+        }
+        rows.forEach((name, partition) -> partitions.put(name, partition.toArray()));
+        return partitions;
+    }
+
+    private static String directoryName(String column, Object value) {
+        return escape(column) + "=" + (value == null ? NULL_PARTITION : escape(value.toString()));
+    }
+
+    /**
+     * Keeps ASCII letters and digits, spaces, '-', '_' and '.'; every other
+     * character becomes the %XX escapes of its UTF-8 bytes, so a name is the
+     * same on any filesystem.
+     */
+    private static String escape(String text) {
+        StringBuilder name = new StringBuilder(text.length());
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xff);
+            if (c < 0x80 && (Character.isLetterOrDigit(c) || c == ' ' || c == '-' || c == '_' || c == '.')) {
+                name.append(c);
+            } else {
+                name.append('%').append(HEX[c >> 4]).append(HEX[c & 0xf]);
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * Removes the part files with this suffix that an earlier export left in
+     * the partition directories of {@code column}, or in the directory itself
+     * when there is no partition column.
+     */
+    private static void clear(Path directory, String suffix, String column) throws IOException {
+        if (!Files.isDirectory(directory)) return;
+        Pattern partFile = Pattern.compile("part-\\d{5}" + Pattern.quote(suffix));
+        if (column == null) {
+            deleteParts(directory, partFile);
+            return;
+        }
+        String owned = escape(column) + "=";
+        for (Path entry : list(directory)) {
+            if (Files.isDirectory(entry) && entry.getFileName().toString().startsWith(owned)) {
+                deleteParts(entry, partFile);
+                if (list(entry).isEmpty()) Files.delete(entry);
+            }
+        }
+    }
+
+    private static void deleteParts(Path directory, Pattern partFile) throws IOException {
+        for (Path file : list(directory)) {
+            if (Files.isRegularFile(file) && partFile.matcher(file.getFileName().toString()).matches()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            return entries.toList();
+        }
+    }
+
+    /** A growing list of row numbers. */
+    private static final class Rows {
+        private int[] rows = new int[16];
+        private int size;
+
+        void add(int row) {
+            if (size == rows.length) rows = Arrays.copyOf(rows, size * 2);
+            rows[size++] = row;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(rows, size);
+        }
+    }
+}
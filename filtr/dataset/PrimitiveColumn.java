@@ -0,0 +1,123 @@
+package filtr.dataset;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.BitSet;
+
+/**
+ * Base for columns backed by primitive buffers from a {@link ColumnStorage}.
+ * NULLs live in a validity bitmap rather than in the buffer, so cells are
+ * never boxed on the hot paths.
+ */
+abstract class PrimitiveColumn extends Column {
+    protected final ColumnStorage storage;
+    protected Bitmap validity;
+    protected int size;
+
+    PrimitiveColumn(int capacity, ColumnStorage storage) {
+        this.storage = storage;
+        this.validity = new Bitmap(capacity);
+    }
+
+    PrimitiveColumn(ColumnStorage storage, Bitmap validity, int size) {
+        this.storage = storage;
+        this.validity = validity;
+        this.size = size;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        return !validity.get(row);
+    }
+
+    @Override
+    public BitSet blanks() {
+        return new BitSet(); // only strings can be blank
+    }
+
+    /** Grows the backing buffer to hold at least this many values. */
+    protected abstract void ensureCapacity(int capacity);
+
+    /** Bytes held by the value buffers, not counting the validity bitmap. */
+    protected abstract long valueBytes();
+
+    @Override
+    long estimatedBytes() {
+        return validity.bytes() + valueBytes();
+    }
+
+    /** Reserves the next row and records whether it holds a value. */
+    protected int nextRow(boolean present) {
+        ensureCapacity(size + 1);
+        validity.set(size, present);
+        return size++;
+    }
+
+    protected static int grow(int current, int needed) {
+        return Math.max(needed, current + (current >> 1) + 1);
+    }
+
+    /**
+     * A larger copy of a buffer this vector is growing out of. The old buffer
+     * goes back to the storage for reuse, unless another dataset still reads it.
+     */
+    protected IntBuffer enlarge(IntBuffer current, int capacity, int used) {
+        IntBuffer resized = resize(current, capacity, used);
+        discard(current);
+        return resized;
+    }
+
+    protected LongBuffer enlarge(LongBuffer current, int capacity, int used) {
+        LongBuffer resized = resize(current, capacity, used);
+        discard(current);
+        return resized;
+    }
+
+    protected DoubleBuffer enlarge(DoubleBuffer current, int capacity, int used) {
+        DoubleBuffer resized = resize(current, capacity, used);
+        discard(current);
+        return resized;
+    }
+
+    protected ByteBuffer enlarge(ByteBuffer current, int capacity, int used) {
+        ByteBuffer resized = resize(current, capacity, used);
+        discard(current);
+        return resized;
+    }
+
+    private void discard(Buffer current) {
+        if (!isShared()) storage.free(current);
+    }
+
+    protected IntBuffer resize(IntBuffer current, int capacity, int used) {
+        IntBuffer resized = storage.ints(capacity);
+        resized.put(0, current, 0, used);
+        return resized;
+    }
+
+    protected LongBuffer resize(LongBuffer current, int capacity, int used) {
+        LongBuffer resized = storage.longs(capacity);
+        resized.put(0, current, 0, used);
+        return resized;
+    }
+
+    protected DoubleBuffer resize(DoubleBuffer current, int capacity, int used) {
+        DoubleBuffer resized = storage.doubles(capacity);
+        resized.put(0, current, 0, used);
+        return resized;
+    }
+
+    protected ByteBuffer resize(ByteBuffer current, int capacity, int used) {
+        ByteBuffer resized = storage.bytes(capacity);
+        resized.put(0, current, 0, used);
+        return resized;
+    }
+}
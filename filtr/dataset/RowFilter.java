@@ -0,0 +1,40 @@
+package filtr.dataset;
+
+import java.util.Objects;
+
+/**
+ * A {@code filter ... where column op value} condition applied while a file is
+ * loaded, so rows it rejects are never stored. Cells are compared exactly as
+ * {@link Column#match} compares them, and NULL never matches.
+ */
+public final class RowFilter {
+    final String column;
+    private final int op;
+    private final Object value;
+
+    public RowFilter(String column, String operator, Object value) {
+        this.column = column;
+        this.op = Comparisons.opcode(operator);
+        this.value = Comparisons.coerce(value);
+    }
+
+    /** Whether a row whose filter column holds this (already typed) cell is kept. */
+    boolean accepts(Object cell) {
+        return cell != null && Comparisons.matches(Comparisons.coerce(cell), op, value);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof RowFilter filter && column.equals(filter.column) && op == filter.op && Objects.equals(value, filter.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(column, op, value);
+    }
+
+    /** Position of the filter column among a file's columns (after filtrID), or -1. */
+    int position(java.util.List<String> columns) {
+        return columns.subList(1, columns.size()).indexOf(column);
+    }
+}
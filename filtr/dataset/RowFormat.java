@@ -0,0 +1,138 @@
+package filtr.dataset;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+
+/**
+ * How cells are written as text. Shared by the file exports and the streaming
+ * pipeline, so a dataset written either way comes out byte for byte the same.
+ * Typed vectors are read without boxing, and CSV cells are written as
+ * their {@code toString()} reads.
+ */
+final class RowFormat {
+
+    private RowFormat() {
+    }
+
+    /** A CSV field: empty for NULL, quoted when it holds a comma or a quote. */
+    static void csvCell(TextWriter out, Column column, int row) throws IOException {
+        if (!writeTyped(out, column, row)) csvField(out, column.get(row));
+    }
+
+    static void csvField(TextWriter out, Object value) throws IOException {
+        if (value instanceof String text) {
+            out.writeCsvField(text);
+        } else if (value != null && !writeScalar(out, value)) {
+            out.writeCsvField(value.toString());
+        }
+    }
+
+    /** The start of a JSON member, {@code "name": }, encoded once per export. */
+    static byte[] jsonName(String name) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (TextWriter out = new TextWriter(bytes)) {
+            out.write('"');
+            out.writeJsonString(name);
+            out.writeString("\": ");
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * A {@code "name": value} member of a JSON object. Numbers and booleans are
+     * written as JSON numbers and booleans, NULL as null, and anything else
+     * (dates included) as a string.
+     */
+    static void jsonMember(TextWriter out, byte[] name, Column column, int row) throws IOException {
+        out.writeBytes(name);
+        if (column.isNull(row)) {
+            out.writeString("null");
+        } else if (column instanceof IntColumn ints) {
+            out.writeInt(ints.getInt(row));
+        } else if (column instanceof DoubleColumn doubles) {
+            jsonNumber(out, doubles.getDouble(row));
+        } else if (column instanceof LongColumn longs) {
+            out.writeLong(longs.getLong(row));
+        } else if (column instanceof BooleanColumn booleans) {
+            out.writeBoolean(booleans.getBoolean(row));
+        } else if (column instanceof DateColumn dates) {
+            out.write('"');
+            out.writeEpochDay(dates.getEpochDay(row));
+            out.write('"');
+        } else {
+            jsonValue(out, column.get(row));
+        }
+    }
+
+    static void jsonMember(TextWriter out, byte[] name, Object value) throws IOException {
+        out.writeBytes(name);
+        jsonValue(out, value);
+    }
+
+    private static void jsonValue(TextWriter out, Object value) throws IOException {
+        if (value == null) {
+            out.writeString("null");
+        } else if (value instanceof Integer i) {
+            out.writeInt(i);
+        } else if (value instanceof Double d) {
+            jsonNumber(out, d);
+        } else if (value instanceof Long l) {
+            out.writeLong(l);
+        } else if (value instanceof Boolean b) {
+            out.writeBoolean(b);
+        } else {
+            out.write('"');
+            if (value instanceof LocalDate date) out.writeEpochDay(date.toEpochDay());
+            else out.writeJsonString(value.toString());
+            out.write('"');
+        }
+    }
+
+    /** JSON has no NaN or infinities; those are written as the strings Double.toString gives. */
+    private static void jsonNumber(TextWriter out, double value) throws IOException {
+        if (Double.isFinite(value)) {
+            out.writeDouble(value);
+        } else {
+            out.write('"');
+            out.writeDouble(value);
+            out.write('"');
+        }
+    }
+
+    /** Writes a cell of a typed vector, which never needs quoting or escaping; false for other vectors. */
+    private static boolean writeTyped(TextWriter out, Column column, int row) throws IOException {
+        if (column instanceof IntColumn ints) {
+            if (!ints.isNull(row)) out.writeInt(ints.getInt(row));
+        } else if (column instanceof DoubleColumn doubles) {
+            if (!doubles.isNull(row)) out.writeDouble(doubles.getDouble(row));
+        } else if (column instanceof LongColumn longs) {
+            if (!longs.isNull(row)) out.writeLong(longs.getLong(row));
+        } else if (column instanceof DateColumn dates) {
+            if (!dates.isNull(row)) out.writeEpochDay(dates.getEpochDay(row));
+        } else if (column instanceof BooleanColumn booleans) {
+            if (!booleans.isNull(row)) out.writeBoolean(booleans.getBoolean(row));
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /** Writes a number, date or boolean cell; false for anything else. */
+    private static boolean writeScalar(TextWriter out, Object value) throws IOException {
+        if (value instanceof Integer i) {
+            out.writeInt(i);
+        } else if (value instanceof Double d) {
+            out.writeDouble(d);
+        } else if (value instanceof Long l) {
+            out.writeLong(l);
+        } else if (value instanceof LocalDate date) {
+            out.writeEpochDay(date.toEpochDay());
+        } else if (value instanceof Boolean b) {
+            out.writeBoolean(b);
+        } else {
+            return false;
+        }
+        return true;
+    }
+}
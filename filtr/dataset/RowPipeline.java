@@ -0,0 +1,206 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A CSV stream passed through filter, fill, drop and rename steps one record
+ * at a time, for scripts that read standard input and write standard output.
+ * Each record is parsed, run through every step and written before the next
+ * one is read, so memory stays flat however long the stream is.
+ *
+ * Steps behave as the {@link Dataset} methods of the same name do on a loaded
+ * dataset, and rows are written with the same text forms, so a script gives
+ * the same output whether it streams or not.
+ */
+public final class RowPipeline {
+    /** One step applied to a record's cells; false drops the record. */
+    private interface Step {
+        boolean apply(Object[] cells);
+    }
+
+    private final CsvReader reader;
+    private final int width;            // fields per input record
+    private final Schema schema;        // current columns, filtrID first
+    private final List<Integer> slots;  // for each current column, its index into a record's cells
+    private final Set<Integer> read = new HashSet<>(); // cells some step looks at
+    private final List<Step> steps = new ArrayList<>();
+
+    private RowPipeline(CsvReader reader, int width, Schema schema, List<Integer> slots) {
+        this.reader = reader;
+        this.width = width;
+        this.schema = schema;
+        this.slots = slots;
+    }
+
+    /** Reads the header; cells are then numbered filtrID first, then the fields in input order. */
+    public static RowPipeline open(InputStream in) throws IOException {
+        CsvReader reader = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<String> fields = new ArrayList<>();
+        if (!reader.next(fields)) throw new IOException("Empty CSV file.");
+
+        List<String> names = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+        names.add("filtrID");
+        slots.add(0);
+        boolean ownId = false;
+        for (int j = 0; j < fields.size(); j++) {
+            String name = fields.get(j).trim();
+            // As when loading, a filtrID field in the input gives way to the record number
+            if (name.equals("filtrID") && !ownId) {
+                ownId = true;
+                continue;
+            }
+            names.add(name);
+            slots.add(j + 1);
+        }
+        return new RowPipeline(reader, fields.size(), new Schema(names), slots);
+    }
+
+    private int slot(String column) {
+        int slot = slots.get(schema.require(column));
+        read.add(slot);
+        return slot;
+    }
+
+    /** As {@link Dataset#filterDataset}: keeps records whose cell matches, never NULL ones. */
+    public void filter(String column, String operator, Object value) {
+        int slot = slot(column);
+        RowFilter test = new RowFilter(column, operator, value);
+        steps.add(cells -> test.accepts(cells[slot]));
+    }
+
+    /** As {@link Dataset#fillValues}. */
+    public void fill(String column, Object value, String conditionColumn, String operator, Object expression, String keyword) {
+        int target = slot(column);
+        boolean blanks;
+        if (keyword.equalsIgnoreCase("blanks")) {
+            blanks = true;
+        } else if (keyword.equalsIgnoreCase("NULL")) {
+            blanks = false;
+        } else {
+            throw new IllegalArgumentException("Unsupported keyword: " + keyword);
+        }
+
+        RowFilter condition = null;
+        int source = -1;
+        if (conditionColumn != null && operator != null && expression != null) {
+            if (!schema.contains(conditionColumn)) {
+                throw new IllegalArgumentException("Condition column " + conditionColumn + " does not exist.");
+            }
+            source = slot(conditionColumn);
+            condition = new RowFilter(conditionColumn, operator, expression);
+        }
+
+        Object fill = (value == null || value.equals("NULL")) ? null : Dataset.normalizeValue(value);
+        RowFilter test = condition;
+        int tested = source;
+        steps.add(cells -> {
+            Object cell = cells[target];
+            boolean missing = blanks ? cell instanceof String s && s.isBlank() : cell == null;
+            if (missing && (test == null || test.accepts(cells[tested]))) cells[target] = fill;
+            return true;
+        });
+    }
+
+    /** As {@link Dataset#dropColumn}. */
+    public void drop(List<String> columns) {
+        int[] removed = schema.drop(columns);
+        for (int i = removed.length - 1; i >= 0; i--) {
+            slots.remove(removed[i]);
+        }
+    }
+
+    /** As {@link Dataset#renameColumn}. */
+    public void rename(String oldName, String newName) {
+        schema.rename(oldName, newName);
+    }
+
+    /**
+     * Streams every remaining record through the steps to {@code stream} as
+     * csv or jsonl. The stream is flushed but left open. Returns the number of
+     * rows written.
+     */
+    public long writeTo(OutputStream stream, String format, ExportOptions options) throws IOException {
+        format = format.trim().toLowerCase();
+        boolean csv = format.equals("csv");
+        if (!csv && !format.equals("jsonl") && !format.equals("ndjson")) {
+            throw new IllegalArgumentException("Only csv and jsonl can be streamed, not " + format + ".");
+        }
+
+        // Only cells that are written or tested are inferred
+        boolean[] parsed = new boolean[width + 1];
+        for (int slot : slots) {
+            parsed[slot] = true;
+        }
+        for (int slot : read) {
+            parsed[slot] = true;
+        }
+        TypeInference[] inference = new TypeInference[width + 1];
+        for (int slot = 1; slot <= width; slot++) {
+            if (parsed[slot]) inference[slot] = new TypeInference();
+        }
+
+        int columns = schema.size();
+        int[] written = slots.stream().mapToInt(Integer::intValue).toArray();
+        byte[][] names = new byte[columns][];
+        for (int c = 0; c < columns; c++) {
+            names[c] = RowFormat.jsonName(schema.name(c));
+        }
+        long rows = 0;
+        try (TextWriter writer = new TextWriter(Dataset.openStream(stream, options))) {
+            if (csv) {
+                writer.writeString(String.join(",", schema.names()));
+                writer.newLine();
+            }
+
+            List<String> fields = new ArrayList<>();
+            Object[] cells = new Object[width + 1];
+            int record = 0;
+            records:
+            while (reader.next(fields)) {
+                record++;
+                if (fields.size() == 1 && fields.get(0).isBlank()) continue;
+
+                if (fields.size() != width) {
+                    System.err.println("Skipping malformed line " + reader.recordLine() + ": " + String.join(",", fields).trim());
+                    continue;
+                }
+
+                cells[0] = record;
+                for (int slot = 1; slot <= width; slot++) {
+                    if (parsed[slot]) cells[slot] = inference[slot].inferNext(DatasetLoader.cleanCell(fields.get(slot - 1)));
+                }
+                for (Step step : steps) {
+                    if (!step.apply(cells)) continue records;
+                }
+
+                if (csv) {
+                    for (int c = 0; c < columns; c++) {
+                        if (c > 0) writer.write(',');
+                        RowFormat.csvField(writer, cells[written[c]]);
+                    }
+                } else {
+                    writer.write('{');
+                    for (int c = 0; c < columns; c++) {
+                        if (c > 0) writer.writeString(", ");
+                        RowFormat.jsonMember(writer, names[c], cells[written[c]]);
+                    }
+                    writer.write('}');
+                }
+                writer.newLine();
+                rows++;
+            }
+        } finally {
+            reader.close();
+        }
+        return rows;
+    }
+}
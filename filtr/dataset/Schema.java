@@ -0,0 +1,102 @@
+package filtr.dataset;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column names of a dataset in display order, with a hash index from name to
+ * ordinal. Renames and drops only change this metadata; no row is touched.
+ */
+public final class Schema {
+    private final List<String> names;
+    private final Map<String, Integer> ordinals;
+
+    public Schema(List<String> names) {
+        this.names = new ArrayList<>(names.size());
+        this.ordinals = new HashMap<>();
+        for (String name : names) {
+            add(name);
+        }
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public String name(int ordinal) {
+        return names.get(ordinal);
+    }
+
+    /** Ordinal of the column, or -1 if there is no such column. */
+    public int ordinal(String name) {
+        Integer ordinal = ordinals.get(name);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public boolean contains(String name) {
+        return ordinals.containsKey(name);
+    }
+
+    /** Ordinal of a column that must exist. */
+    public int require(String name) {
+        Integer ordinal = ordinals.get(name);
+        if (ordinal == null) {
+            throw new IllegalArgumentException("Column " + name + " does not exist.");
+        }
+        return ordinal;
+    }
+
+    /** Read-only view of the names in order. */
+    public List<String> names() {
+        return Collections.unmodifiableList(names);
+    }
+
+    /** Appends a column and returns its ordinal. */
+    public int add(String name) {
+        if (ordinals.containsKey(name)) {
+            throw new IllegalArgumentException("Column " + name + " already exists.");
+        }
+        names.add(name);
+        ordinals.put(name, names.size() - 1);
+        return names.size() - 1;
+    }
+
+    public void rename(String oldName, String newName) {
+        int ordinal = require(oldName);
+        if (ordinals.containsKey(newName)) {
+            throw new IllegalArgumentException("Column " + newName + " already exists.");
+        }
+        names.set(ordinal, newName);
+        ordinals.remove(oldName);
+        ordinals.put(newName, ordinal);
+    }
+
+    /**
+     * Removes the columns, all of which must exist, and returns their former
+     * ordinals in ascending order so the caller can drop the matching vectors.
+     */
+    public int[] drop(Collection<String> dropped) {
+        int[] removed = dropped.stream().mapToInt(this::require).distinct().sorted().toArray();
+        for (int i = removed.length - 1; i >= 0; i--) {
+            ordinals.remove(names.remove(removed[i]));
+        }
+        // Only the columns after the first removed one shift
+        for (int ordinal = removed.length == 0 ? names.size() : removed[0]; ordinal < names.size(); ordinal++) {
+            ordinals.put(names.get(ordinal), ordinal);
+        }
+        return removed;
+    }
+
+    public Schema copy() {
+        return new Schema(names);
+    }
+
+    @Override
+    public String toString() {
+        return names.toString();
+    }
+}
@@ -0,0 +1,218 @@
+package filtr.dataset;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * What an earlier load learned about a CSV file, kept next to it as
+ * {@code data.csv.fltrschema}: the column names, the type every column's cells
+ * inferred to, the row count and whether the file holds any quotes.
+ *
+ * A sidecar only counts while the file has the size, modification time and
+ * checksum it recorded (the checksum covers the first and last 64 KiB, so it is
+ * cheap to check on every import). Then columns of one type skip the sampling
+ * and trial parses of {@link TypeInference}, vectors are sized for the whole
+ * file up front, and the parallel loader skips its quote pre-pass on files
+ * without quotes. A stale, missing or unreadable sidecar just means a normal
+ * load, after which it is rewritten.
+ */
+final class SchemaSidecar {
+    static final String SUFFIX = ".fltrschema";
+    private static final int VERSION = 1;
+    private static final int CHECKSUM_BYTES = 1 << 16;
+    private static final String UNKNOWN = "unknown";
+
+    private final Path file;
+    private final long size;
+    private final long modified;
+    private final long checksum;
+
+    // From the sidecar on disk (when it matches the file), updated by learn()
+    private List<String> header;
+    private String[] types;
+    private int rows = -1;
+    private boolean quoted = true;
+
+    private boolean bound;      // the file's header matches the recorded one
+    private boolean sawQuotes;
+    private boolean quotesKnown;
+    private boolean changed;
+
+    private SchemaSidecar(Path file, long size, long modified, long checksum) {
+        this.file = file;
+        this.size = size;
+        this.modified = modified;
+        this.checksum = checksum;
+    }
+
+    /** Hints for input that isn't a file, such as standard input: nothing known, nothing saved. */
+    static SchemaSidecar none() {
+        return new SchemaSidecar(null, 0, 0, 0);
+    }
+
+    /** The sidecar for this file; empty when there is none or it describes another version. */
+    static SchemaSidecar open(Path file) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        SchemaSidecar sidecar = new SchemaSidecar(file, attributes.size(), attributes.lastModifiedTime().toMillis(), checksum(file, attributes.size()));
+        try {
+            JSONObject json = new JSONObject(Files.readString(path(file), StandardCharsets.UTF_8));
+            if (json.getInt("version") != VERSION || !",".equals(json.getString("delimiter"))) return sidecar;
+            if (json.getLong("size") != sidecar.size || json.getLong("modified") != sidecar.modified || json.getLong("checksum") != sidecar.checksum) {
+                return sidecar;
+            }
+            JSONArray columns = json.getJSONArray("columns");
+            List<String> header = new ArrayList<>();
+            String[] types = new String[columns.length()];
+            for (int j = 0; j < types.length; j++) {
+                JSONObject column = columns.getJSONObject(j);
+                header.add(column.getString("name"));
+                types[j] = column.getString("type");
+            }
+            sidecar.header = header;
+            sidecar.types = types;
+            sidecar.rows = json.getInt("rows");
+            sidecar.quoted = json.getBoolean("quoted");
+        } catch (NoSuchFileException | JSONException e) {
+            // No sidecar yet, or one this version can't read: load as usual
+        }
+        return sidecar;
+    }
+
+    private static Path path(Path file) {
+        return file.resolveSibling(file.getFileName() + SUFFIX);
+    }
+
+    /** CRC-32 of the first and last {@link #CHECKSUM_BYTES} of the file. */
+    private static long checksum(Path file, long size) throws IOException {
+        CRC32 crc = new CRC32();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(size, CHECKSUM_BYTES));
+            channel.read(buffer, 0);
+            crc.update(buffer.flip());
+            if (size > CHECKSUM_BYTES) {
+                buffer.clear();
+                channel.read(buffer, Math.max(CHECKSUM_BYTES, size - CHECKSUM_BYTES));
+                crc.update(buffer.flip());
+            }
+        }
+        return crc.getValue();
+    }
+
+    /** Checks the header just read (filtrID first) against the recorded one; hints only apply when they match. */
+    void bind(List<String> columns) {
+        bound = header != null && header.equals(columns.subList(1, columns.size()));
+    }
+
+    /** Inference for file column j: settled on the recorded type, or starting from scratch. */
+    TypeInference inference(int j) {
+        Class<?> type = bound ? type(types[j]) : null;
+        return type == null ? new TypeInference() : TypeInference.known(type);
+    }
+
+    /** Vector capacity for the whole file, when its row count is known. */
+    int capacity(int fallback) {
+        return bound ? Math.max(rows, 1) : fallback;
+    }
+
+    /** False only when the file is known to hold no quote characters. */
+    boolean quoted() {
+        return !bound || quoted;
+    }
+
+    /** Whether the reader met any quote character; a load that never looked leaves the recorded answer. */
+    void sawQuotes(boolean seen) {
+        sawQuotes = seen;
+        quotesKnown = true;
+    }
+
+    /** Records what a load produced: vectors[0] is filtrID, then one per file column. */
+    void learn(List<String> columns, Column[] vectors) {
+        List<String> names = new ArrayList<>(columns.subList(1, columns.size()));
+        String[] learned = new String[names.size()];
+        for (int j = 0; j < learned.length; j++) {
+            // A column skipped by a projection keeps what an earlier load found
+            learned[j] = vectors[j + 1] instanceof SkippedColumn ? (bound ? types[j] : UNKNOWN) : name(vectors[j + 1]);
+        }
+        boolean quotes = quotesKnown ? sawQuotes : quoted();
+        changed = !bound || !Arrays.equals(learned, types) || rows != vectors[0].size() || quoted != quotes;
+        header = names;
+        types = learned;
+        rows = vectors[0].size();
+        quoted = quotes;
+        bound = true;
+    }
+
+    /** Writes the sidecar if the last load taught it something. A directory we can't write to just goes without. */
+    void save() {
+        if (!changed || file == null) return;
+        JSONArray columns = new JSONArray();
+        for (int j = 0; j < types.length; j++) {
+            columns.put(new JSONObject().put("name", header.get(j)).put("type", types[j]));
+        }
+        JSONObject json = new JSONObject()
+            .put("version", VERSION)
+            .put("size", size)
+            .put("modified", modified)
+            .put("checksum", checksum)
+            .put("delimiter", ",")
+            .put("quoted", quoted)
+            .put("rows", rows)
+            .put("columns", columns);
+        try {
+            Files.writeString(path(file), json.toString(2), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // The sidecar is only a hint
+        }
+        changed = false;
+    }
+
+    /** The type a column's cells all inferred to; "mixed" when they differ. */
+    private static String name(Column vector) {
+        if (vector instanceof IntColumn) return "int";
+        if (vector instanceof DoubleColumn) return "double";
+        if (vector instanceof BooleanColumn) return "boolean";
+        if (vector instanceof DateColumn) return "date";
+        if (vector instanceof DictionaryColumn || vector instanceof Utf8Column) return "string";
+        // Strings too distinct to dictionary-encode end up boxed on the heap
+        if (vector instanceof ObjectColumn && onlyStrings(vector)) return "string";
+        return "mixed";
+    }
+
+    /** Whether the column holds at least one string and nothing but strings and NULLs. */
+    private static boolean onlyStrings(Column vector) {
+        boolean present = false;
+        for (int i = 0; i < vector.size(); i++) {
+            Object value = vector.get(i);
+            if (value == null) continue;
+            if (!(value instanceof String)) return false;
+            present = true;
+        }
+        return present;
+    }
+
+    private static Class<?> type(String name) {
+        return switch (name) {
+            case "int" -> Integer.class;
+            case "double" -> Double.class;
+            case "boolean" -> Boolean.class;
+            case "date" -> LocalDate.class;
+            case "string" -> String.class;
+            default -> null;
+        };
+    }
+}
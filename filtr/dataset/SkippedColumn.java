@@ -0,0 +1,65 @@
+package filtr.dataset;
+
+/**
+ * Stand-in for a column the script never reads, so the loader can skip
+ * parsing it. It keeps the column's place (and row count) in the schema, so
+ * renaming or dropping it still works, but it holds no values. Reaching
+ * one means the planner missed a read; the failure is an
+ * IllegalArgumentException, which the interpreter reports as a runtime error.
+ */
+final class SkippedColumn extends Column {
+    private final int size;
+
+    SkippedColumn(int size) {
+        this.size = size;
+    }
+
+    static IllegalArgumentException notLoaded() {
+        return new IllegalArgumentException("Column was not loaded because the script never reads it.");
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    long estimatedBytes() {
+        return 0;
+    }
+
+    @Override
+    public Object get(int row) {
+        throw notLoaded();
+    }
+
+    @Override
+    public void set(int row, Object value) {
+        throw notLoaded();
+    }
+
+    @Override
+    public void append(Object value) {
+        throw notLoaded();
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return false;
+    }
+
+    @Override
+    public Column widen() {
+        throw notLoaded();
+    }
+
+    @Override
+    public Column copy() {
+        return new SkippedColumn(size);
+    }
+
+    @Override
+    public Column select(int[] rows) {
+        return new SkippedColumn(rows.length);
+    }
+}
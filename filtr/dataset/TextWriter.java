@@ -0,0 +1,323 @@
+package filtr.dataset;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+/**
+ * Sequential UTF-8 writer for the text formats. Characters are encoded
+ * straight into one reusable byte buffer, and numbers and dates are written
+ * digit by digit, so exporting a row allocates nothing. Every value comes out
+ * exactly as its {@code toString()} would.
+ */
+final class TextWriter implements Closeable {
+    private static final int CAPACITY = 1 << 16;
+    private static final int MAX_CHAR_BYTES = 4; // a surrogate pair; any other char takes at most 3
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.US_ASCII);
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final long[] TENS = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[CAPACITY];
+    private final byte[] digits = new byte[20];
+    private int position;
+
+    TextWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /** One ASCII character. */
+    void write(char c) throws IOException {
+        if (position == CAPACITY) drain();
+        buffer[position++] = (byte) c;
+    }
+
+    /** Bytes already encoded. */
+    void writeBytes(byte[] bytes) throws IOException {
+        if (!reserve(bytes.length)) {
+            drain();
+            out.write(bytes);
+            return;
+        }
+        System.arraycopy(bytes, 0, buffer, position, bytes.length);
+        position += bytes.length;
+    }
+
+    void newLine() throws IOException {
+        for (byte b : LINE_SEPARATOR) {
+            write((char) b);
+        }
+    }
+
+    /** Text as it is. */
+    void writeString(String text) throws IOException {
+        int length = text.length();
+        if (!reserve(3L * length)) {
+            for (int i = 0; i < length; i++) {
+                i = encodeChecked(text, i);
+            }
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) buffer[position++] = (byte) c;
+            else i = encode(text, i);
+        }
+    }
+
+    /**
+     * A JSON string's contents: quotes, backslashes and control characters are
+     * escaped, as are unpaired surrogates, which have no UTF-8 form.
+     */
+    void writeJsonString(String text) throws IOException {
+        int length = text.length();
+        boolean reserved = reserve(6L * length);
+        for (int i = 0; i < length; i++) {
+            if (!reserved && position + 6 > CAPACITY) drain();
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer[position++] = '\\';
+                buffer[position++] = (byte) c;
+            } else if (c >= 0x20 && c < 0x80) {
+                buffer[position++] = (byte) c;
+            } else if (c < 0x20) {
+                escapeControl(c);
+            } else if (Character.isSurrogate(c) && unpaired(text, i)) {
+                escapeUnicode(c);
+            } else {
+                i = encode(text, i);
+            }
+        }
+    }
+
+    private void escapeControl(char c) {
+        char escape = switch (c) {
+            case '\b' -> 'b';
+            case '\f' -> 'f';
+            case '\n' -> 'n';
+            case '\r' -> 'r';
+            case '\t' -> 't';
+            default -> 0;
+        };
+        if (escape == 0) {
+            escapeUnicode(c);
+            return;
+        }
+        buffer[position++] = '\\';
+        buffer[position++] = (byte) escape;
+    }
+
+    /** A backslash-u escape, four lowercase hex digits. */
+    private void escapeUnicode(char c) {
+        buffer[position++] = '\\';
+        buffer[position++] = 'u';
+        for (int shift = 12; shift >= 0; shift -= 4) {
+            buffer[position++] = (byte) HEX[c >> shift & 0xf];
+        }
+    }
+
+    /** Whether the surrogate at i isn't the start of a pair; a pair's second half is consumed with its first. */
+    private static boolean unpaired(String text, int i) {
+        return Character.isLowSurrogate(text.charAt(i)) || i + 1 == text.length() || !Character.isLowSurrogate(text.charAt(i + 1));
+    }
+
+    /**
+     * A CSV field, quoted with its quotes doubled only when it holds a comma,
+     * a quote or a line break, so a multi-line cell reads back as one. The
+     * text is scanned once: it is written as it goes, and in the rare case it
+     * needs quotes they are added around what was written.
+     */
+    void writeCsvField(String text) throws IOException {
+        int length = text.length();
+        if (!reserve(3L * length + 2)) {
+            writeLongCsvField(text);
+            return;
+        }
+
+        int start = position;
+        boolean quote = false;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                buffer[position++] = '"';
+                buffer[position++] = '"';
+                quote = true;
+            } else if (c < 0x80) {
+                if (c == ',' || c == '\n' || c == '\r') quote = true;
+                buffer[position++] = (byte) c;
+            } else {
+                i = encode(text, i);
+            }
+        }
+        if (quote) {
+            System.arraycopy(buffer, start, buffer, start + 1, position - start);
+            buffer[start] = '"';
+            position++;
+            buffer[position++] = '"';
+        }
+    }
+
+    /** As {@link #writeCsvField}, for text too long to fit in the buffer at once. */
+    private void writeLongCsvField(String text) throws IOException {
+        boolean quote = text.indexOf(',') >= 0 || text.indexOf('"') >= 0
+            || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0;
+        if (quote) write('"');
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') write('"');
+            i = encodeChecked(text, i);
+        }
+        if (quote) write('"');
+    }
+
+    void writeInt(int value) throws IOException {
+        writeLong(value);
+    }
+
+    void writeLong(long value) throws IOException {
+        if (position + digits.length > CAPACITY) drain();
+        if (value < 0) {
+            if (value == Long.MIN_VALUE) {
+                writeString(Long.toString(value));
+                return;
+            }
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        while (n > 0) {
+            buffer[position++] = digits[--n];
+        }
+    }
+
+    /** As {@link Double#toString(double)}. */
+    void writeDouble(double value) throws IOException {
+        if (!writeShortDecimal(value)) writeString(Double.toString(value));
+    }
+
+    /**
+     * Writes a value that is a decimal of at most six places between 0.001 and
+     * 10^7, which Double.toString shows in plain notation with the fewest
+     * places that read back as the same double. Returns false for any other value.
+     */
+    private boolean writeShortDecimal(double value) throws IOException {
+        double magnitude = Math.abs(value);
+        if (!(magnitude >= 1e-3 && magnitude < 1e7)) return false;
+        for (int places = 0; places < TENS.length; places++) {
+            long scaled = Math.round(magnitude * TENS[places]);
+            if ((double) scaled / TENS[places] != magnitude) continue;
+
+            // The fewest places, so the last fraction digit is never a zero
+            if (value < 0) write('-');
+            writeLong(scaled / TENS[places]);
+            write('.');
+            if (places == 0) {
+                write('0');
+                return true;
+            }
+            long fraction = scaled % TENS[places];
+            for (int p = places - 1; p >= 0; p--) {
+                write((char) ('0' + fraction / TENS[p] % 10));
+            }
+            return true;
+        }
+        return false;
+    }
+
+    void writeBoolean(boolean value) throws IOException {
+        writeString(value ? "true" : "false");
+    }
+
+    /** An ISO date (yyyy-MM-dd), as {@link LocalDate#toString()}. */
+    void writeEpochDay(long epochDay) throws IOException {
+        // Civil date from days since 1970-01-01, in 400-year eras starting 0000-03-01
+        long z = epochDay + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shifted = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shifted + 2) / 5 + 1);
+        int month = (int) (shifted < 10 ? shifted + 3 : shifted - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        if (year < 0 || year > 9999) {
+            writeString(LocalDate.ofEpochDay(epochDay).toString());
+            return;
+        }
+        writePadded(year, 4);
+        write('-');
+        writePadded(month, 2);
+        write('-');
+        writePadded(day, 2);
+    }
+
+    private void writePadded(long value, int width) throws IOException {
+        for (int p = width - 1; p >= 0; p--) {
+            write((char) ('0' + value / TENS[p] % 10));
+        }
+    }
+
+    /**
+     * Makes room for {@code bytes} more; false when that is more than the
+     * whole buffer, and the caller has to check room as it goes.
+     */
+    private boolean reserve(long bytes) throws IOException {
+        if (bytes > CAPACITY) return false;
+        if (position + bytes > CAPACITY) drain();
+        return true;
+    }
+
+    /** As {@link #encode}, first making room for it. */
+    private int encodeChecked(String text, int i) throws IOException {
+        if (position + MAX_CHAR_BYTES > CAPACITY) drain();
+        return encode(text, i);
+    }
+
+    /**
+     * Encodes the char at i (with the next one, for a surrogate pair) into room
+     * already made; returns the index of the last char used.
+     */
+    private int encode(String text, int i) {
+        char c = text.charAt(i);
+        if (c < 0x80) {
+            buffer[position++] = (byte) c;
+        } else if (c < 0x800) {
+            buffer[position++] = (byte) (0xc0 | c >> 6);
+            buffer[position++] = (byte) (0x80 | c & 0x3f);
+        } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, text.charAt(++i));
+            buffer[position++] = (byte) (0xf0 | codePoint >> 18);
+            buffer[position++] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+            buffer[position++] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+            buffer[position++] = (byte) (0x80 | codePoint & 0x3f);
+        } else if (Character.isSurrogate(c)) {
+            buffer[position++] = '?'; // unpaired, as the JDK's UTF-8 encoder replaces it
+        } else {
+            buffer[position++] = (byte) (0xe0 | c >> 12);
+            buffer[position++] = (byte) (0x80 | c >> 6 & 0x3f);
+            buffer[position++] = (byte) (0x80 | c & 0x3f);
+        }
+        return i;
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+}
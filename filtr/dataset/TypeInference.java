@@ -0,0 +1,263 @@
+package filtr.dataset;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
+
+/**
+ * Turns cell text into Integer, Double, Boolean, LocalDate or String, in that
+ * order of preference. Each classifier accepts exactly what the matching JDK
+ * parser (Integer.parseInt, Double.parseDouble, LocalDate.parse) accepts, but
+ * rejects text by returning null instead of throwing, so string cells cost a
+ * character scan rather than up to three exceptions.
+ *
+ * An instance follows one column: once the first {@link #SAMPLE_SIZE} cells
+ * agree on a type, that type is tried first for the rest of the column.
+ */
+public final class TypeInference {
+    /** How many non-null cells a column must agree on before its type is fixed. */
+    static final int SAMPLE_SIZE = 64;
+
+    private Class<?> sampled;
+    private int samples;
+    private Class<?> settled;
+    private boolean exact; // every cell is known to infer as the settled type
+
+    /**
+     * An instance for a column whose cells a previous load found all infer as
+     * {@code type}, so sampling and the fallback checks are skipped. A cell that
+     * doesn't parse as that type still goes through {@link #infer}.
+     */
+    static TypeInference known(Class<?> type) {
+        TypeInference inference = new TypeInference();
+        inference.settled = type;
+        inference.samples = SAMPLE_SIZE;
+        inference.exact = true;
+        return inference;
+    }
+
+    /** Infers one cell of this column; null stays null. */
+    public Object inferNext(String raw) {
+        if (raw == null) return null;
+        if (settled != null) {
+            Object value = fastPath(raw);
+            if (value != null) return value;
+        }
+        Object value = infer(raw);
+        if (samples < SAMPLE_SIZE) {
+            if (samples == 0) {
+                sampled = value.getClass();
+            } else if (sampled != value.getClass()) {
+                sampled = null;
+            }
+            if (++samples == SAMPLE_SIZE) settled = sampled;
+        }
+        return value;
+    }
+
+    /**
+     * The cell parsed as the settled type, when that is certainly what
+     * {@link #infer} would give; null sends the cell down the general path.
+     */
+    private Object fastPath(String raw) {
+        if (settled == Integer.class) return parseInt(raw);
+        if (settled == Double.class) {
+            // A whole number might have been an Integer, unless the column is known to have none
+            Double value = parseDouble(raw);
+            return value != null && (exact || value % 1 != 0) ? value : null;
+        }
+        if (settled == LocalDate.class) return parseDate(raw);
+        if (settled == Boolean.class) return parseBoolean(raw);
+        if (settled == String.class) return exact || isPlainText(raw) ? raw : null;
+        return null;
+    }
+
+    /** Integer, Double, Boolean, LocalDate, or the text itself; null stays null. */
+    public static Object infer(String raw) {
+        if (raw == null) return null;
+        if (isPlainText(raw)) return raw;
+
+        Integer integer = parseInt(raw);
+        if (integer != null) return integer;
+
+        Double decimal = parseDouble(raw);
+        if (decimal != null) return decimal;
+
+        Boolean bool = parseBoolean(raw);
+        if (bool != null) return bool;
+
+        LocalDate date = parseDate(raw);
+        if (date != null) return date;
+
+        return raw;
+    }
+
+    /**
+     * Text that starts with a letter no number or date can start with, and is
+     * not a boolean. Decides most string cells from the first character.
+     */
+    private static boolean isPlainText(String raw) {
+        if (raw.isEmpty()) return false;
+        char first = raw.charAt(0);
+        boolean letter = (first >= 'a' && first <= 'z') || (first >= 'A' && first <= 'Z');
+        return letter && first != 'N' && first != 'I' && parseBoolean(raw) == null;
+    }
+
+    /** As Integer.parseInt, or null. */
+    public static Integer parseInt(String s) {
+        int length = s.length();
+        if (length == 0) return null;
+        int i = 0;
+        boolean negative = false;
+        char first = s.charAt(0);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++i == length) return null;
+        }
+        long value = 0;
+        for (; i < length; i++) {
+            int digit = Character.digit(s.charAt(i), 10);
+            if (digit < 0) return null;
+            value = value * 10 + digit;
+            if (value > 1L + Integer.MAX_VALUE) return null;
+        }
+        if (negative) value = -value;
+        return value > Integer.MAX_VALUE ? null : (int) value;
+    }
+
+    /** As Double.parseDouble (surrounding whitespace included), or null. */
+    public static Double parseDouble(String s) {
+        int end = s.length();
+        int i = 0;
+        while (i < end && s.charAt(i) <= ' ') i++;
+        while (end > i && s.charAt(end - 1) <= ' ') end--;
+        if (i == end) return null;
+
+        int start = i;
+        char c = s.charAt(i);
+        if (c == '-' || c == '+') {
+            if (++i == end) return null;
+            c = s.charAt(i);
+        }
+        if (c == 'N' || c == 'I') {
+            String word = c == 'N' ? "NaN" : "Infinity";
+            if (end - i != word.length() || !s.startsWith(word, i)) return null;
+        } else if (c == '0' && i + 1 < end && (s.charAt(i + 1) == 'x' || s.charAt(i + 1) == 'X')) {
+            if (!isHexFloat(s, i + 2, end)) return null;
+        } else if (!isDecimal(s, i, end)) {
+            return null;
+        }
+        return Double.parseDouble(s.substring(start, end));
+    }
+
+    /** digits[.digits] or .digits, then [eE][+-]digits, then one of fFdD, all optional but a digit. */
+    private static boolean isDecimal(String s, int i, int end) {
+        int digits = 0;
+        while (i < end && isDigit(s.charAt(i))) {
+            i++;
+            digits++;
+        }
+        if (i < end && s.charAt(i) == '.') {
+            i++;
+            while (i < end && isDigit(s.charAt(i))) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0) return false;
+        if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) i++;
+            int exponentDigits = 0;
+            while (i < end && isDigit(s.charAt(i))) {
+                i++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0) return false;
+        }
+        return i == end || (i == end - 1 && isTypeSuffix(s.charAt(i)));
+    }
+
+    /** After "0x": hex digits with an optional point, then a binary exponent, then one of fFdD. */
+    private static boolean isHexFloat(String s, int i, int end) {
+        int digits = 0;
+        while (i < end && Character.digit(s.charAt(i), 16) >= 0 && s.charAt(i) < 128) {
+            i++;
+            digits++;
+        }
+        if (i < end && s.charAt(i) == '.') {
+            i++;
+            while (i < end && Character.digit(s.charAt(i), 16) >= 0 && s.charAt(i) < 128) {
+                i++;
+                digits++;
+            }
+        }
+        if (digits == 0 || i == end || (s.charAt(i) != 'p' && s.charAt(i) != 'P')) return false;
+        i++;
+        if (i < end && (s.charAt(i) == '-' || s.charAt(i) == '+')) i++;
+        int exponentDigits = 0;
+        while (i < end && isDigit(s.charAt(i))) {
+            i++;
+            exponentDigits++;
+        }
+        if (exponentDigits == 0) return false;
+        return i == end || (i == end - 1 && isTypeSuffix(s.charAt(i)));
+    }
+
+    /** "true" or "false" in any case, or null. */
+    public static Boolean parseBoolean(String s) {
+        if (s.equalsIgnoreCase("true")) return Boolean.TRUE;
+        if (s.equalsIgnoreCase("false")) return Boolean.FALSE;
+        return null;
+    }
+
+    /**
+     * As LocalDate.parse (ISO yyyy-MM-dd), or null. Years beyond four digits
+     * need a '+' sign, and a '+' needs more than four digits.
+     */
+    public static LocalDate parseDate(String s) {
+        int length = s.length();
+        if (length < 10) return null;
+        int i = 0;
+        char sign = s.charAt(0);
+        if (sign == '-' || sign == '+') i++;
+
+        int yearStart = i;
+        long year = 0;
+        while (i < length && isDigit(s.charAt(i))) {
+            year = year * 10 + (s.charAt(i) - '0');
+            if (++i - yearStart > 10) return null;
+        }
+        int yearDigits = i - yearStart;
+        if (yearDigits < 4) return null;
+        if (sign == '+' && yearDigits <= 4) return null;
+        if (sign != '+' && sign != '-' && yearDigits > 4) return null;
+        if (sign == '-') {
+            if (year == 0) return null;
+            year = -year;
+        }
+        if (year < Year.MIN_VALUE || year > Year.MAX_VALUE) return null;
+
+        if (length - i != 6 || s.charAt(i) != '-' || s.charAt(i + 3) != '-') return null;
+        int month = twoDigits(s, i + 1);
+        int day = twoDigits(s, i + 4);
+        if (month < 1 || month > 12 || day < 1) return null;
+        if (day > Month.of(month).length(Year.isLeap(year))) return null;
+        return LocalDate.of((int) year, month, day);
+    }
+
+    private static int twoDigits(String s, int i) {
+        char tens = s.charAt(i);
+        char ones = s.charAt(i + 1);
+        if (!isDigit(tens) || !isDigit(ones)) return -1;
+        return (tens - '0') * 10 + (ones - '0');
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isTypeSuffix(char c) {
+        return c == 'f' || c == 'F' || c == 'd' || c == 'D';
+    }
+}
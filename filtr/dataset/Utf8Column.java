@@ -0,0 +1,138 @@
+package filtr.dataset;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+
+/**
+ * String column kept as UTF-8 bytes in a single growable buffer, with a start
+ * offset and length per row. Used for off-heap datasets whose strings are too
+ * distinct to dictionary-encode; a value is decoded only when it is read.
+ * Overwriting a cell appends the new bytes, the old ones are left unused.
+ */
+public class Utf8Column extends PrimitiveColumn {
+    private ByteBuffer data;
+    private IntBuffer starts;
+    private IntBuffer lengths;
+    private int used;
+
+    public Utf8Column(int capacity, ColumnStorage storage) {
+        super(capacity, storage);
+        this.data = storage.bytes(capacity * 8);
+        this.starts = storage.ints(capacity);
+        this.lengths = storage.ints(capacity);
+    }
+
+    Utf8Column(ColumnStorage storage, ByteBuffer data, IntBuffer starts, IntBuffer lengths, Bitmap validity, int size) {
+        super(storage, validity, size);
+        this.data = data;
+        this.starts = starts;
+        this.lengths = lengths;
+        this.used = data.limit();
+    }
+
+    /** UTF-8 bytes of a present row, without decoding them. */
+    ByteBuffer bytes(int row) {
+        return data.slice(starts.get(row), lengths.get(row));
+    }
+
+    @Override
+    public Object get(int row) {
+        if (isNull(row)) return null;
+        byte[] bytes = new byte[lengths.get(row)];
+        data.get(starts.get(row), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public boolean accepts(Object value) {
+        return value == null || value instanceof String;
+    }
+
+    @Override
+    public void set(int row, Object value) {
+        if (value == null) {
+            validity.clear(row);
+            return;
+        }
+        store(row, (String) value);
+        validity.set(row);
+    }
+
+    @Override
+    public void append(Object value) {
+        int row = nextRow(value != null);
+        if (value != null) {
+            store(row, (String) value);
+        } else {
+            lengths.put(row, 0);
+        }
+    }
+
+    /** Appends a value given as UTF-8 bytes, without decoding it. */
+    public void appendUtf8(ByteBuffer source, int offset, int length) {
+        int row = nextRow(true);
+        store(row, source, offset, length);
+    }
+
+    private void store(int row, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        store(row, ByteBuffer.wrap(bytes), 0, bytes.length);
+    }
+
+    private void store(int row, ByteBuffer source, int offset, int length) {
+        if (used + length > data.capacity()) {
+            data = enlarge(data, grow(data.capacity(), used + length), used);
+        }
+        data.put(used, source, offset, length);
+        starts.put(row, used);
+        lengths.put(row, length);
+        used += length;
+    }
+
+    @Override
+    public BitSet blanks() {
+        BitSet result = new BitSet(size);
+        for (int i = 0; i < size; i++) {
+            if (!isNull(i) && ((String) get(i)).isBlank()) result.set(i);
+        }
+        return result;
+    }
+
+    @Override
+    protected void ensureCapacity(int capacity) {
+        if (capacity > starts.capacity()) {
+            int grown = grow(starts.capacity(), capacity);
+            starts = enlarge(starts, grown, size);
+            lengths = enlarge(lengths, grown, size);
+        }
+    }
+
+    @Override
+    protected long valueBytes() {
+        return data.capacity() + (long) (starts.capacity() + lengths.capacity()) * Integer.BYTES;
+    }
+
+    @Override
+    public Column copy() {
+        return select(allRows());
+    }
+
+    @Override
+    public Column select(int[] rows) {
+        Utf8Column selected = new Utf8Column(rows.length, storage);
+        for (int row : rows) {
+            selected.append(get(row));
+        }
+        return selected;
+    }
+
+    private int[] allRows() {
+        int[] rows = new int[size];
+        for (int i = 0; i < size; i++) {
+            rows[i] = i;
+        }
+        return rows;
+    }
+}
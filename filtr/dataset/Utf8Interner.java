@@ -0,0 +1,72 @@
+package filtr.dataset;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Maps UTF-8 byte ranges to canonical Strings, so a value that repeats down a
+ * column is decoded once. Stops remembering new values after {@code limit}.
+ */
+final class Utf8Interner {
+    private final int limit;
+    private byte[][] keys = new byte[64][];
+    private String[] values = new String[64];
+    private int[] hashes = new int[64];
+    private int count;
+
+    Utf8Interner(int limit) {
+        this.limit = limit;
+    }
+
+    String intern(ByteBuffer source, int offset, int length) {
+        int hash = 1;
+        for (int i = offset; i < offset + length; i++) {
+            hash = 31 * hash + source.get(i);
+        }
+        int mask = keys.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != null) {
+            if (hashes[slot] == hash && matches(keys[slot], source, offset, length)) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+
+        byte[] bytes = new byte[length];
+        source.get(offset, bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        if (count < limit) {
+            keys[slot] = bytes;
+            values[slot] = value;
+            hashes[slot] = hash;
+            if (++count * 2 > keys.length) rehash();
+        }
+        return value;
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer source, int offset, int length) {
+        if (key.length != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (key[i] != source.get(offset + i)) return false;
+        }
+        return true;
+    }
+
+    private void rehash() {
+        byte[][] oldKeys = keys;
+        String[] oldValues = values;
+        int[] oldHashes = hashes;
+        keys = new byte[oldKeys.length * 2][];
+        values = new String[keys.length];
+        hashes = new int[keys.length];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == null) continue;
+            int slot = (oldHashes[i] ^ (oldHashes[i] >>> 16)) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+            hashes[slot] = oldHashes[i];
+        }
+    }
+}
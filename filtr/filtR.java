@@ -3,6 +3,7 @@ package filtr;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.PrintStream;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Paths;
@@ -10,6 +11,8 @@ import java.util.List;
 
 public class filtR {
   private static final Interpreter interpreter = new Interpreter();
+  // The process's real standard output; System.out moves to stderr when a script exports to stdout
+  static final PrintStream stdout = System.out;
   static boolean hadError = false;
   static boolean hadRuntimeError = false;
   public static void main(String[] args) throws IOException {
@@ -25,7 +28,7 @@ public class filtR {
   
   private static void runFile(String path) throws IOException {
     byte[] bytes = Files.readAllBytes(Paths.get(path));
-    run(new String(bytes, Charset.defaultCharset()));
+    run(new String(bytes, Charset.defaultCharset()), true);
     
     // Indicate an error in the exit code. 
     if (hadError) System.exit(65);
@@ -40,12 +43,12 @@ public class filtR {
       System.out.print("> ");
       String line = reader.readLine();
       if (line == null) break;
-      run(line);
+      run(line, false);
       hadError = false;
     }
   }
   
-  private static void run(String source) {
+  private static void run(String source, boolean wholeScript) {
     Scanner scanner = new Scanner(source);
     List<Token> tokens = scanner.scanTokens();
     
@@ -55,6 +58,25 @@ public class filtR {
     // Stop if there was a syntax error.
     if (hadError) return;
     
+    // A whole script is known up front, so imports can skip columns it never reads
+    // and filters that are the only use of an import can run while it loads
+    if (wholeScript) {
+      interpreter.useProjections(new ProjectionAnalyzer().analyze(statements));
+      interpreter.usePushdowns(new PushdownPlanner(tokens).plan(statements));
+
+      // Data written to stdout must not be interleaved with progress messages
+      for (int i = 1; i < tokens.size(); i++) {
+        if (tokens.get(i - 1).type == TokenType.TO && tokens.get(i).lexeme.equals("stdout")) {
+          System.setOut(System.err);
+          break;
+        }
+      }
+
+      // A straight filter/fill/drop pipeline from stdin to stdout runs a record at a time
+      StreamPipeline pipeline = StreamPipeline.plan(statements);
+      if (pipeline != null && pipeline.run()) return;
+    }
+    
     interpreter.interpret(statements);
   }
   
@@ -38,8 +38,8 @@ public class GenerateAst {
                 "Rename     : Token dataset, Token column, Token newName",
                 "AddColumn  : Token dataset, Token column, List<Expr> value",
                 "Filter     : Token dataset, Token columnName, Token operator, Expr expression, Token newName",
-                "Export     : Token keyword, Token dataset, Token path, Token format",
-                "Import     : Token keyword, Token path, Token newName",
+                "Export     : Token keyword, Token dataset, Token path, Token format, List<Token> options",
+                "Import     : Token keyword, Token path, Token newName, List<Token> options",
                 "Assign     : Token name, Expr value",
                 "Return     : Expr value",
                 "View       : Token dataset",